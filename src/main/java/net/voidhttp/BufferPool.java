@@ -0,0 +1,143 @@
+package net.voidhttp;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a pool of direct byte buffers, that are used to read from and write to the client socket channels.
+ * <p>
+ * The buffers are grouped into size classes of powers of two, so a released buffer can be reused by any
+ * request that needs a buffer of the same size class. The pool is shared between the worker threads,
+ * and it does not use any locks.
+ * <p>
+ * Buffers that are larger than the largest size class are not pooled, and they are allocated on the heap.
+ */
+public class BufferPool {
+    /**
+     * The binary logarithm of the smallest size class.
+     */
+    private static final int MIN_SHIFT = 10;
+
+    /**
+     * The binary logarithm of the largest size class.
+     */
+    private static final int MAX_SHIFT = 20;
+
+    /**
+     * The queues of the released buffers for each size class.
+     */
+    private final Queue<ByteBuffer>[] buffers;
+
+    /**
+     * The amount of released buffers for each size class.
+     */
+    private final AtomicInteger[] counts;
+
+    /**
+     * The total amount of bytes that are retained by the pool.
+     */
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    /**
+     * The maximum amount of buffers retained for each size class.
+     */
+    private final int poolSize;
+
+    /**
+     * The maximum amount of bytes retained by the pool.
+     */
+    private final long maxRetainedBytes;
+
+    /**
+     * Initialize the buffer pool.
+     * @param config the configuration of the server
+     */
+    public BufferPool(ServerConfig config) {
+        poolSize = config.getBufferPoolSize();
+        maxRetainedBytes = config.getMaxPooledBytes();
+
+        int classes = MAX_SHIFT - MIN_SHIFT + 1;
+        @SuppressWarnings("unchecked")
+        Queue<ByteBuffer>[] queues = (Queue<ByteBuffer>[]) new Queue<?>[classes];
+        buffers = queues;
+        counts = new AtomicInteger[classes];
+        for (int i = 0; i < classes; i++) {
+            buffers[i] = new ConcurrentLinkedQueue<>();
+            counts[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Retrieve a buffer that can hold the specified amount of bytes.
+     * The buffer is cleared, and its limit is set to the requested size.
+     * @param size the requested size of the buffer
+     * @return a pooled or a newly allocated buffer
+     */
+    public ByteBuffer acquire(int size) {
+        int index = sizeClass(size);
+        // the buffer is too large to be pooled
+        if (index >= buffers.length)
+            return ByteBuffer.allocate(size);
+
+        ByteBuffer buffer = buffers[index].poll();
+        if (buffer != null) {
+            counts[index].decrementAndGet();
+            retainedBytes.addAndGet(-buffer.capacity());
+            buffer.clear();
+        } else
+            buffer = ByteBuffer.allocateDirect(1 << (index + MIN_SHIFT));
+
+        return buffer.limit(size);
+    }
+
+    /**
+     * Return the buffer to the pool, so it can be reused by another request.
+     * The buffer is dropped, if the pool has reached its limits.
+     * @param buffer the buffer to release
+     */
+    public void release(ByteBuffer buffer) {
+        // ignore the buffers that were not allocated by the pool
+        if (buffer == null || !buffer.isDirect())
+            return;
+
+        int capacity = buffer.capacity();
+        int index = sizeClass(capacity);
+        if (index >= buffers.length || 1 << (index + MIN_SHIFT) != capacity)
+            return;
+
+        // check if the pool can retain more buffers
+        if (counts[index].incrementAndGet() > poolSize) {
+            counts[index].decrementAndGet();
+            return;
+        }
+        if (retainedBytes.addAndGet(capacity) > maxRetainedBytes) {
+            retainedBytes.addAndGet(-capacity);
+            counts[index].decrementAndGet();
+            return;
+        }
+
+        buffers[index].offer(buffer);
+    }
+
+    /**
+     * Get the total amount of bytes that are retained by the pool.
+     * @return the retained byte count
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Determine the index of the smallest size class that can hold the specified amount of bytes.
+     * @param size the amount of bytes
+     * @return the index of the size class
+     */
+    private static int sizeClass(int size) {
+        if (size <= 1 << MIN_SHIFT)
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+}
@@ -0,0 +1,474 @@
+package net.voidhttp;
+
+import dev.inventex.octa.concurrent.future.Future;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Represents a persistent client connection, that may carry multiple HTTP requests over
+ * the same socket channel, if the client allows the connection to be kept alive.
+ * <p>
+ * Clients may pipeline their requests, by sending multiple requests without waiting for the responses.
+ * In that case, the requests are processed as soon as they are read, but the responses are always
+ * written in the order of the requests.
+ */
+public class HttpConnection {
+    /**
+     * The id of the connection in the socket channel pool.
+     */
+    @Getter
+    private final int id;
+
+    /**
+     * The connecting client socket channel.
+     */
+    @Getter
+    private final AsynchronousSocketChannel channel;
+
+    /**
+     * The configuration of the http server.
+     */
+    private final ServerConfig config;
+
+    /**
+     * The pool of the direct buffers that are used to read from and write to the socket channel.
+     */
+    @Getter
+    private final BufferPool bufferPool;
+
+    /**
+     * The handler that begins processing the next request of the connection.
+     */
+    private final Consumer<HttpConnection> requestHandler;
+
+    /**
+     * The handler that is called when the connection has been closed.
+     */
+    private final Consumer<HttpConnection> closeHandler;
+
+    /**
+     * The indication, whether the connection has been closed.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * The actions that are run, when the connection is closed, such as releasing the resources of the requests,
+     * whose responses have not been written yet.
+     */
+    private final Set<Runnable> closeActions = new HashSet<>();
+
+    /**
+     * The queue of the responses that are waiting to be written in the order of their requests.
+     * The segments of the responses are mapped by the sequence number of their requests. Most responses
+     * consist of a single segment, whilst streamed responses are written in multiple segments.
+     */
+    private final Map<Integer, Queue<Segment>> responseQueue = new HashMap<>();
+
+    /**
+     * The amount of requests that have been started on this connection.
+     * This is also the sequence number of the most recent request.
+     */
+    @Getter
+    private int requestCount;
+
+    /**
+     * The sequence number of the next response that should be written to the socket channel.
+     */
+    private int writeSequence = 1;
+
+    /**
+     * The sequence number of the last response, after which the connection should be closed.
+     */
+    private int closeAfter = Integer.MAX_VALUE;
+
+    /**
+     * The indication, whether a request is currently being read from the socket channel.
+     */
+    private boolean reading;
+
+    /**
+     * The indication, whether a response is currently being written to the socket channel.
+     */
+    private boolean writing;
+
+    /**
+     * The bytes that were read from the socket channel after the end of the previous request.
+     * These are the beginning of the next pipelined request.
+     */
+    private byte[] leftover;
+
+    /**
+     * Initialize the client connection.
+     * @param id the id of the connection in the socket channel pool
+     * @param channel the connecting client socket channel
+     * @param config the configuration of the server
+     * @param bufferPool the pool of the socket channel buffers
+     * @param requestHandler the handler that processes the next request of the connection
+     * @param closeHandler the handler that is called when the connection is closed
+     */
+    public HttpConnection(
+        int id, AsynchronousSocketChannel channel, ServerConfig config, BufferPool bufferPool,
+        Consumer<HttpConnection> requestHandler, Consumer<HttpConnection> closeHandler
+    ) {
+        this.id = id;
+        this.channel = channel;
+        this.config = config;
+        this.bufferPool = bufferPool;
+        this.requestHandler = requestHandler;
+        this.closeHandler = closeHandler;
+    }
+
+    /**
+     * Begin processing the next request of the connection, if the connection is ready for it.
+     */
+    public void nextRequest() {
+        synchronized (this) {
+            if (!canReadNext())
+                return;
+
+            reading = true;
+            requestCount++;
+        }
+
+        requestHandler.accept(this);
+    }
+
+    /**
+     * Indicate, whether the next request can be read from the connection.
+     * @return true if the next request can be read
+     */
+    private boolean canReadNext() {
+        // do not start a new request if the connection is being closed
+        if (reading || closed.get() || requestCount >= closeAfter)
+            return false;
+
+        // the requests that have been started, but their responses have not been written yet
+        int pending = requestCount - writeSequence + 1;
+
+        // the next request has already been received, continue with it,
+        // unless too many responses are waiting to be written
+        if (leftover != null)
+            return pending < config.getMaxPipelinedRequests();
+
+        // otherwise wait for the client only if all the responses have been written, so the idle
+        // timeout of the connection does not elapse whilst a request is still being handled
+        return pending == 0;
+    }
+
+    /**
+     * Indicate that the current request has been read from the socket channel.
+     * @param keepAlive true if the client wants the connection to be kept alive
+     */
+    public void completeRead(boolean keepAlive) {
+        synchronized (this) {
+            reading = false;
+            // do not read any more requests, if the client is going to close the connection
+            if (!keepAlive || !canKeepAlive(requestCount))
+                closeAfter = Math.min(closeAfter, requestCount);
+        }
+
+        // close the connection, if the last response has already been written,
+        // otherwise begin reading the next pipelined request
+        flush();
+        nextRequest();
+    }
+
+    /**
+     * Indicate that the client has not sent the next request, because it has closed the connection,
+     * or the connection has timed out. The connection is closed after the pending responses are written.
+     */
+    public void abandonRead() {
+        synchronized (this) {
+            reading = false;
+            closeAfter = Math.min(closeAfter, requestCount - 1);
+        }
+
+        flush();
+    }
+
+    /**
+     * Indicate, whether the connection has already served a request before the current one.
+     * @return true if the connection is being reused
+     */
+    public boolean isReused() {
+        return requestCount > 1;
+    }
+
+    /**
+     * Indicate, whether the connection may be kept alive after the response of the specified request.
+     * @param sequence the sequence number of the request
+     * @return true if the connection can process more requests
+     */
+    public boolean canKeepAlive(int sequence) {
+        return config.isKeepAlive()
+            && sequence < config.getMaxKeepAliveRequests()
+            && !closed.get()
+            && channel.isOpen();
+    }
+
+    /**
+     * Store the bytes that were read after the end of the current request.
+     * @param bytes the beginning of the next request
+     */
+    public synchronized void setLeftover(byte[] bytes) {
+        leftover = bytes.length > 0 ? bytes : null;
+    }
+
+    /**
+     * Retrieve and clear the bytes that were read after the end of the previous request.
+     * @return the beginning of the next request, or null if there is none
+     */
+    public synchronized byte[] takeLeftover() {
+        byte[] bytes = leftover;
+        leftover = null;
+        return bytes;
+    }
+
+    /**
+     * Queue the response of the specified request to be written to the socket channel.
+     * The responses are written in the order of the requests.
+     * @param sequence the sequence number of the request
+     * @param head the pooled buffer of the response head, that is released after it has been written
+     * @param body the response body to be written
+     * @param keepAlive true if the connection should be kept alive after the response
+     * @return future that will be completed when the response has been written
+     */
+    public Future<Void> write(int sequence, ByteBuffer head, byte[] body, boolean keepAlive) {
+        return write(sequence, new ByteBuffer[] { head, ByteBuffer.wrap(body) }, true, keepAlive);
+    }
+
+    /**
+     * Queue a segment of the response of the specified request to be written to the socket channel.
+     * The segments of a response are written in the order they are queued, and the responses of the
+     * subsequent requests are not written until the last segment of the response has been written.
+     * @param sequence the sequence number of the request
+     * @param buffers the buffers of the segment, the first of which is released to the pool after it has been written,
+     * and the second of which is written in windows of the configured chunk size
+     * @param last true if this is the last segment of the response
+     * @param keepAlive true if the connection should be kept alive after the response
+     * @return future that will be completed when the segment has been written
+     */
+    public Future<Void> write(int sequence, ByteBuffer[] buffers, boolean last, boolean keepAlive) {
+        Future<Void> future = new Future<>();
+        synchronized (this) {
+            // the connection has been closed before the response could be queued
+            if (closed.get()) {
+                bufferPool.release(buffers[0]);
+                return Future.failed(new IOException("Connection has been closed"));
+            }
+
+            if (!keepAlive)
+                closeAfter = Math.min(closeAfter, sequence);
+            responseQueue
+                .computeIfAbsent(sequence, key -> new ArrayDeque<>())
+                .add(new Segment(buffers, future, last));
+        }
+
+        flush();
+        return future;
+    }
+
+    /**
+     * Write the next queued response, if it is ready and no other response is being written.
+     * Close the connection, if there are no more responses to be written.
+     */
+    private void flush() {
+        Segment segment;
+        synchronized (this) {
+            if (writing || closed.get())
+                return;
+
+            // check if the last response of the connection has been written
+            if (writeSequence > closeAfter) {
+                segment = null;
+            } else {
+                // check if the next segment of the response of the next request in order is ready
+                Queue<Segment> segments = responseQueue.get(writeSequence);
+                segment = segments != null ? segments.poll() : null;
+                if (segment == null)
+                    return;
+                if (segment.last)
+                    responseQueue.remove(writeSequence);
+                writing = true;
+            }
+        }
+
+        if (segment == null) {
+            close();
+            return;
+        }
+
+        writeData(segment);
+    }
+
+    /**
+     * Write the buffers of the response segment to the socket channel using gathering writes, so the body
+     * does not have to be copied after the head. The body is written in windows of the configured chunk size,
+     * and the buffers that follow the body are only written with the last window, so they are never sent
+     * before the whole body. After the write operation is done, continue with the next segment, response or request.
+     * @param segment the segment of the response to be written
+     */
+    private void writeData(Segment segment) {
+        ByteBuffer[] buffers = segment.buffers;
+        ByteBuffer body = buffers[1];
+        int end = body.limit();
+        int chunkSize = config.getContentWriteSize();
+        body.limit(Math.min(end, body.position() + chunkSize));
+
+        channel.write(buffers, 0, window(buffers, end), 0L, TimeUnit.MILLISECONDS, null, new CompletionHandler<Long, Void>() {
+            @Override
+            public void completed(Long bytesWritten, Void attachment) {
+                // the socket may accept less bytes than requested, continue writing the same window
+                int length = window(buffers, end);
+                if (!hasRemaining(buffers, length)) {
+                    // check if the whole segment has been written
+                    if (body.limit() == end) {
+                        bufferPool.release(buffers[0]);
+                        synchronized (HttpConnection.this) {
+                            writing = false;
+                            if (segment.last)
+                                writeSequence++;
+                        }
+                        segment.future.complete(null);
+                        // write the next queued segment, or wait for the next request
+                        flush();
+                        nextRequest();
+                        return;
+                    }
+                    // move the window to the next chunk of the body
+                    body.limit(Math.min(end, body.limit() + chunkSize));
+                    length = window(buffers, end);
+                }
+                channel.write(buffers, 0, length, 0L, TimeUnit.MILLISECONDS, null, this);
+            }
+
+            @Override
+            public void failed(Throwable error, Void attachment) {
+                // the client has most likely disconnected, there is nothing to recover
+                bufferPool.release(buffers[0]);
+                segment.future.fail(error);
+                close();
+            }
+        });
+    }
+
+    /**
+     * Get the amount of buffers of the segment, that are written with the current window of the body.
+     * @param buffers the buffers of the segment
+     * @param end the end of the body
+     * @return all the buffers for the last window of the body, otherwise the head and the body only
+     */
+    private int window(ByteBuffer[] buffers, int end) {
+        return buffers[1].limit() == end ? buffers.length : 2;
+    }
+
+    /**
+     * Indicate, whether any of the buffers has bytes remaining to be written.
+     * @param buffers the buffers to check
+     * @param length the amount of buffers to check
+     * @return true if there are remaining bytes
+     */
+    private boolean hasRemaining(ByteBuffer[] buffers, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buffers[i].hasRemaining())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Close the connection and release the socket channel.
+     */
+    public void close() {
+        // make sure to close the connection only once
+        if (!closed.compareAndSet(false, true))
+            return;
+
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+
+        List<Segment> pending = new ArrayList<>();
+        List<Runnable> actions;
+        synchronized (this) {
+            for (Queue<Segment> segments : responseQueue.values())
+                pending.addAll(segments);
+            responseQueue.clear();
+            leftover = null;
+            actions = new ArrayList<>(closeActions);
+            closeActions.clear();
+        }
+
+        // the queued responses will never be written
+        for (Segment segment : pending) {
+            bufferPool.release(segment.buffers[0]);
+            segment.future.fail(new IOException("Connection has been closed"));
+        }
+
+        for (Runnable action : actions)
+            action.run();
+
+        closeHandler.accept(this);
+    }
+
+    /**
+     * Register an action, that is run when the connection is closed. If the connection has already been closed,
+     * the action is run right away.
+     * @param action the action to be run
+     */
+    public void onClose(Runnable action) {
+        synchronized (this) {
+            if (!closed.get()) {
+                closeActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * Unregister an action, that is no longer needed to be run when the connection is closed.
+     * @param action the action to be removed
+     */
+    public synchronized void removeCloseAction(Runnable action) {
+        closeActions.remove(action);
+    }
+
+    /**
+     * Represents a segment of a response, that is waiting to be written to the socket channel.
+     */
+    @RequiredArgsConstructor
+    private static class Segment {
+        /**
+         * The buffers of the segment, that are written using a single gathering write.
+         */
+        private final ByteBuffer[] buffers;
+
+        /**
+         * The future that is completed when the segment has been written.
+         */
+        private final Future<Void> future;
+
+        /**
+         * The indication, whether this is the last segment of the response.
+         */
+        private final boolean last;
+    }
+}
@@ -1,24 +1,34 @@
 package net.voidhttp;
 
+import dev.inventex.octa.console.Logger;
+import dev.inventex.octa.data.primitive.Tuple;
 import lombok.Getter;
 import lombok.SneakyThrows;
 import net.voidhttp.controller.ControllerInjector;
+import net.voidhttp.request.BodyStream;
 import net.voidhttp.request.HttpRequest;
-import net.voidhttp.request.query.RequestQuery;
 import net.voidhttp.response.HttpResponse;
 import net.voidhttp.router.Context;
 import net.voidhttp.router.Middleware;
 import net.voidhttp.request.Method;
-import net.voidhttp.router.Route;
+import net.voidhttp.router.RouteMatch;
 import net.voidhttp.router.Router;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.channels.AsynchronousChannelGroup;
 import java.nio.channels.AsynchronousServerSocketChannel;
 import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executors;
-import java.util.function.BiConsumer;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Represents an advanced multithreaded HTTP server.
@@ -35,9 +45,14 @@ public class HttpServer {
     private final ControllerInjector injector = new ControllerInjector();
 
     /**
-     * The asynchronous server socket channel of the server.
+     * The listening asynchronous server socket channels of the server.
      */
-    private AsynchronousServerSocketChannel server;
+    private final List<AsynchronousServerSocketChannel> servers = new ArrayList<>();
+
+    /**
+     * The asynchronous channel groups of the listening channels, whose threads are stopped when the server shuts down.
+     */
+    private final List<AsynchronousChannelGroup> groups = new ArrayList<>();
 
     /**
      * The configuration of the http server.
@@ -48,8 +63,19 @@ public class HttpServer {
     /**
      * The concurrent socket channel pool of the server.
      */
+    @Getter
     private SocketChannelPool channelPool;
 
+    /**
+     * The pool of the direct buffers that are used to read from and write to the socket channels.
+     */
+    private BufferPool bufferPool;
+
+    /**
+     * The scheduler of the response timeouts, whose tasks are cancelled when the responses are completed.
+     */
+    private ScheduledThreadPoolExecutor timeoutScheduler;
+
     /**
      * Register a handler for the given request method.
      * @param method request method
@@ -61,6 +87,21 @@ public class HttpServer {
         return this;
     }
 
+    /**
+     * Register a handler for the given request method, that receives the request content as a stream.
+     * <p>
+     * The content is not buffered in the memory, the handlers read it in chunks through {@link HttpRequest#stream()},
+     * so large uploads can be piped to a file or another socket. The next request of the connection is not read
+     * until the content has been consumed.
+     * @param method request method
+     * @param route request route
+     * @param middlewares request handlers
+     */
+    public HttpServer stream(Method method, String route, Middleware... middlewares) {
+        router.register(method, route, true, middlewares);
+        return this;
+    }
+
     /**
      * Register a GET request handler.
      * @param route request route
@@ -132,14 +173,27 @@ public class HttpServer {
         if (isRunning())
             throw new IllegalStateException("Server is already running");
 
-        // create the server socket channel and bind it to the specified port
-        server = AsynchronousServerSocketChannel
-            .open(createChannelGroup())
-            .bind(new InetSocketAddress(host, port), config.getBacklog());
-
-        // accept incoming socket connections
-        channelPool = new SocketChannelPool(server, config, this::acceptConnection);
-        channelPool.acceptSockets();
+        // create the pool of the socket channel buffers
+        bufferPool = new BufferPool(config);
+
+        // create the scheduler of the response timeouts, the cancelled timeouts must not retain their responses
+        timeoutScheduler = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "VoidHttp Response Timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timeoutScheduler.setRemoveOnCancelPolicy(true);
+
+        // create the pool of the connections, that is shared between the listening channels
+        channelPool = new SocketChannelPool(config, this::acceptConnection);
+
+        // create the listening channels, each of them accepts the incoming socket connections
+        // in its own acceptor loop, and is processed by its own channel group
+        servers.clear();
+        for (AsynchronousServerSocketChannel server : openChannels(new InetSocketAddress(host, port))) {
+            servers.add(server);
+            channelPool.acceptSockets(server);
+        }
 
         // notify startup actions
         for (Runnable action : actions)
@@ -157,30 +211,110 @@ public class HttpServer {
     }
 
     /**
-     * Create the asynchronous channel group for the server that will take care of
+     * Create the server socket channels and bind them to the specified address.
+     * <p>
+     * Multiple channels are bound to the same address using the `SO_REUSEPORT` option, if more than one
+     * acceptor is configured, so the operating system balances the incoming connections between them.
+     *
+     * @param address the server bind address
+     * @return the list of the bound server socket channels
+     * @throws IOException error whilst binding the channels
+     */
+    private List<AsynchronousServerSocketChannel> openChannels(InetSocketAddress address) throws IOException {
+        int count = Math.max(1, config.getAcceptorCount());
+        if (count > 1 && !isReusePortSupported()) {
+            Logger.error("[VoidHttp] SO_REUSEPORT is not supported, using a single acceptor.");
+            count = 1;
+        }
+
+        List<AsynchronousServerSocketChannel> channels = new ArrayList<>(count);
+        List<AsynchronousChannelGroup> channelGroups = new ArrayList<>(count);
+        try {
+            SocketAddress bound = address;
+            for (int i = 0; i < count; i++) {
+                AsynchronousChannelGroup group = createChannelGroup(count);
+                channelGroups.add(group);
+                AsynchronousServerSocketChannel channel = AsynchronousServerSocketChannel.open(group);
+                channels.add(channel);
+                channel.setOption(StandardSocketOptions.SO_REUSEADDR, config.isReuseAddress());
+                if (config.getReceiveBufferSize() > 0)
+                    channel.setOption(StandardSocketOptions.SO_RCVBUF, config.getReceiveBufferSize());
+                if (count > 1)
+                    channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+                channel.bind(bound, config.getBacklog());
+                // bind the rest of the channels to the actual address of the first one,
+                // in case the port has been picked by the operating system
+                bound = channel.getLocalAddress();
+            }
+        } catch (IOException e) {
+            // do not leave the channels bound, if any of them could not be bound,
+            // and stop the threads of their groups, otherwise they would keep the application running
+            for (AsynchronousServerSocketChannel channel : channels)
+                channel.close();
+            for (AsynchronousChannelGroup group : channelGroups)
+                group.shutdownNow();
+            throw e;
+        }
+
+        groups.addAll(channelGroups);
+        return channels;
+    }
+
+    /**
+     * Check if the platform supports binding multiple server socket channels to the same port.
+     *
+     * @return true if the `SO_REUSEPORT` option is supported
+     * @throws IOException error whilst checking the supported options
+     */
+    private boolean isReusePortSupported() throws IOException {
+        try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+            return channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        }
+    }
+
+    /**
+     * Create the asynchronous channel group for a listening channel of the server that will take care of
      * balancing the incoming connections between the threads.
      *
+     * @param groups the amount of channel groups the worker threads are split between
      * @return the asynchronous channel group
      */
     @SneakyThrows
-    private AsynchronousChannelGroup createChannelGroup() {
+    private AsynchronousChannelGroup createChannelGroup(int groups) {
         // in case of virtual threads, we should not pool them
         // for more information, visit: https://docs.oracle.com/en/java/javase/20/core/virtual-threads.html#GUID-9065C2D5-9006-4F1A-93E0-D5153BB40475
         return AsynchronousChannelGroup.withThreadPool(
             config.isVirtualThreads() ?
                 Executors.newVirtualThreadPerTaskExecutor() :
-                Executors.newFixedThreadPool(config.getPoolSize())
+                Executors.newFixedThreadPool(Math.max(1, config.getPoolSize() / groups))
         );
     }
 
     /**
      * Accept the next client socket connection.
      * @param channel connecting client socket channel
+     * @param id the id of the connection in the channel pool
+     */
+    private void acceptConnection(AsynchronousSocketChannel channel, int id) {
+        // wrap the channel in a connection that may be kept alive for multiple requests
+        // release the channel from the pool only after the connection has been closed
+        HttpConnection connection = new HttpConnection(
+            id, channel, config, bufferPool, this::handleConnection,
+            closed -> channelPool.releaseChannel(closed.getId())
+        );
+
+        // begin processing the first request of the connection
+        connection.nextRequest();
+    }
+
+    /**
+     * Process the next request of the client connection.
+     * @param connection the client connection to read the request from
      */
-    private void acceptConnection(AsynchronousSocketChannel channel) {
+    private void handleConnection(HttpConnection connection) {
         // create the request and the response
-        HttpRequest request = new HttpRequest(channel, config);
-        HttpResponse response = new HttpResponse(this, channel);
+        HttpRequest request = new HttpRequest(connection, config, router::isStreaming);
+        HttpResponse response = new HttpResponse(this, connection);
 
         // create the execution context wrapper
         Context context = new Context(request, response);
@@ -193,13 +327,90 @@ public class HttpServer {
                 context.setMethod(request.method());
                 context.setUrl(request.route());
 
+                // the request has been fully read, so the connection may be reused for the next one,
+                // unless the content is streamed, which is read later by the handlers
+                boolean keepAlive = request.isKeepAlive();
+                BodyStream stream = request.stream();
+                response.setKeepAlive(keepAlive);
+                response.setBodyStream(stream);
+                response.setVersion(request.getVersion());
+
+                // the temporary files of the multipart form are only valid until the response has been written,
+                // or until the connection is closed, if the response is never written
+                if (request.hasResources()) {
+                    Runnable release = request::release;
+                    connection.onClose(release);
+                    response.getCompletion()
+                        .then(value -> {
+                            connection.removeCloseAction(release);
+                            release.run();
+                        })
+                        .except(error -> {
+                            connection.removeCloseAction(release);
+                            release.run();
+                        });
+                }
+
                 // let the router handle the request
-                handleRequest(context);
+                try {
+                    handleRequest(context);
+                } catch (Exception e) {
+                    router.handleError(context, e);
+                }
+
+                // the response may be sent or ended later by an asynchronous handler, make sure it does not stall
+                // the connection
+                if (response.isPending())
+                    scheduleResponseTimeout(response);
+
+                // begin reading the next pipelined request, whilst the response might be still pending
+                if (stream == null)
+                    connection.completeRead(keepAlive);
+                // the next request follows the streamed content, wait for the handlers to consume it
+                else
+                    stream.getCompletion()
+                        .then(value -> connection.completeRead(keepAlive))
+                        .except(error -> connection.completeRead(false));
             }).except(e -> {
+                // the client has closed the connection, or it has timed out before sending a new request
+                if (request.isIdle()) {
+                    connection.abandonRead();
+                    return;
+                }
+
+                // do not read any more requests, as the state of the connection is unknown
+                connection.completeRead(false);
+                request.release();
+
                 // redirect the error to the router, let implementation handle it
                 router.handleError(context, e);
-            }).result((BiConsumer<Void, Throwable>) (val, err) -> channelPool.releaseChannel(channel));
-        // TODO release the channel after the write operation is done
+
+                // an error handler may respond later, or pass the request without responding,
+                // make sure the connection is closed eventually
+                if (response.isPending())
+                    scheduleResponseTimeout(response);
+            });
+    }
+
+    /**
+     * Abort the response, if the handlers have not sent it, or have not ended its stream within the response timeout.
+     * The subsequent responses of the connection cannot be written before it, so the connection is closed.
+     * @param response the response that is still pending
+     */
+    private void scheduleResponseTimeout(HttpResponse response) {
+        Tuple<Long, TimeUnit> timeout = config.getResponseTimeout();
+        if (timeout.getFirst() <= 0)
+            return;
+
+        ScheduledFuture<?> task = timeoutScheduler.schedule(() -> {
+            if (response.abort(new TimeoutException("Request handler did not respond in time")))
+                Logger.error("[VoidHttp] Request handler did not respond in time, closing the connection.");
+        }, timeout.getFirst(), timeout.getSecond());
+
+        // do not retain the response and the connection after the response has been written
+        response.getCompletion()
+            .then(value -> task.cancel(false))
+            .except(error -> task.cancel(false));
     }
 
     /**
@@ -219,10 +430,10 @@ public class HttpServer {
         // preprocess the router middlewares
         router.preprocess(context);
 
-        // get the list of routes corresponding for the method
-        List<Route> routes = router.getRoutes(method);
-        // check if there aren't any handlers for the method
-        if (routes == null || routes.isEmpty()) {
+        // find the routes of the method that match the url
+        List<RouteMatch> matches = router.match(method, url);
+        // check if there aren't any handlers for the url
+        if (matches.isEmpty()) {
             router.handleNotFound(context);
             return;
         }
@@ -230,16 +441,11 @@ public class HttpServer {
         // declare a variable for determining if the request was handled or not
         // so we can send a 404 error
         boolean handled = false;
-        // handle the routes registered for the method
-        for (Route route : routes) {
-            // continue if the route did not pass the test
-            RequestQuery query = new RequestQuery();
-            if (!route.test(url, query))
-                continue;
-
+        // handle the routes matching the url
+        for (RouteMatch match : matches) {
             // handle the request
-            request.setQuery(query);
-            route.handle(request, response);
+            request.setQuery(match.getQuery());
+            match.getRoute().handle(request, response);
 
             // stop processing if the handler did not pass the handling
             if (!request.passed())
@@ -261,14 +467,26 @@ public class HttpServer {
      * @return true if the server is running
      */
     public boolean isRunning() {
-        return server != null && server.isOpen();
+        for (AsynchronousServerSocketChannel server : servers) {
+            if (server.isOpen())
+                return true;
+        }
+        return false;
     }
 
     /**
      * Stop the HTTP server and close connections.
+     * The threads of the channel groups and the pending response timeouts are stopped as well,
+     * so they do not keep the application running.
      */
     @SneakyThrows
     public void shutdown() {
-        server.close();
+        for (AsynchronousServerSocketChannel server : servers)
+            server.close();
+        for (AsynchronousChannelGroup group : groups)
+            group.shutdownNow();
+        groups.clear();
+        if (timeoutScheduler != null)
+            timeoutScheduler.shutdownNow();
     }
 }
@@ -55,6 +55,63 @@ public class ServerConfig {
      */
     private int maxContentLength = 1048576;
 
+    /**
+     * The maximum size in bytes of the content of the streaming routes. If the socket exceeds this limit,
+     * the connection is dropped.
+     * <p>
+     * The content of the streaming routes is not buffered in the memory, it is handed over to the handler
+     * in chunks of {@link #contentReadSize}, so this may be much higher than {@link #maxContentLength}.
+     */
+    private long maxStreamedContentLength = 1073741824L;
+
+    /**
+     * The maximum size in bytes of the multipart/form-data content. If the socket exceeds this limit,
+     * the connection is dropped.
+     * <p>
+     * The multipart content is parsed as it is read, so only the entries below the
+     * {@link #multipartMemoryThreshold} are kept in the memory, and this may be much higher than
+     * {@link #maxContentLength}.
+     */
+    private long maxMultipartLength = 1073741824L;
+
+    /**
+     * The maximum size in bytes of a multipart/form-data entry, that is kept in the memory.
+     * The larger entries, such as uploaded files, are written to temporary files, which are deleted
+     * after the response has been sent.
+     */
+    private int multipartMemoryThreshold = 65536;
+
+    /**
+     * The maximum total size in bytes of the multipart/form-data entries of a request, that are kept in the memory.
+     * <p>
+     * Once the entries of a request exceed this limit, the data of the further entries is written to temporary files,
+     * even if they are below the {@link #multipartMemoryThreshold}. The headers of the entries are counted as well,
+     * and the content is rejected, if the headers alone exceed this limit.
+     */
+    private long multipartMemoryLimit = 4194304L;
+
+    /**
+     * The directory of the temporary files of the multipart/form-data entries,
+     * or null to use the default temporary directory of the system.
+     */
+    private String multipartDirectory = null;
+
+    /**
+     * The maximum amount of direct buffers retained by the buffer pool for each size class.
+     * <p>
+     * VoidHttp reads from and writes to the socket channels using pooled direct buffers, so the buffers do not
+     * have to be allocated and copied for each request. Released buffers exceeding this limit are dropped.
+     */
+    private int bufferPoolSize = 256;
+
+    /**
+     * The maximum amount of bytes retained by the buffer pool in total.
+     * <p>
+     * Direct buffers are allocated outside the heap, so make sure to keep this below the
+     * `-XX:MaxDirectMemorySize` limit of the JVM.
+     */
+    private long maxPooledBytes = 33554432;
+
     /**
      * The number of threads in the thread pool.
      * <p>
@@ -75,6 +132,20 @@ public class ServerConfig {
      */
     private boolean virtualThreads = true;
 
+    /**
+     * The amount of acceptor loops, each listening on its own server socket channel and feeding its own
+     * channel group of worker threads.
+     * <p>
+     * If this is greater than 1, the listening channels are bound to the same address with the `SO_REUSEPORT`
+     * option, so the operating system (like Linux) balances the incoming connections between them. This avoids
+     * a single acceptor thread from being the bottleneck under high connection rates. If `SO_REUSEPORT` is
+     * not supported by the platform, a single listening channel is used.
+     * <p>
+     * If {@link #virtualThreads} is disabled, the threads of the {@link #poolSize} are split between the
+     * channel groups. Changing this value will not affect if the server is already running.
+     */
+    private int acceptorCount = 1;
+
     /**
      * The maximum timeout for reading data from the client socket channel.
      * <p>
@@ -82,6 +153,50 @@ public class ServerConfig {
      */
     private Tuple<Long, TimeUnit> readTimeout = new Tuple<>(10L, TimeUnit.SECONDS);
 
+    /**
+     * The maximum time the handlers may take to send the response of a request, or to end its response stream.
+     * <p>
+     * The responses of a connection are written in the order of their requests, so a handler that never responds
+     * would hold back the responses of the subsequent requests forever. If the response has not been sent, or its
+     * stream has not been ended within the specified timeout, it is aborted, and the connection is closed.
+     * Set the amount to 0 to disable the timeout.
+     */
+    private Tuple<Long, TimeUnit> responseTimeout = new Tuple<>(60L, TimeUnit.SECONDS);
+
+    /**
+     * The indication, whether HTTP persistent connections should be used.
+     * <p>
+     * If enabled, VoidHttp will keep the client socket channel open after a response has been written,
+     * and it will wait for the next request on the same connection, unless the client sends a `Connection: close`
+     * header. This saves a TCP handshake for every subsequent request of the client.
+     */
+    private boolean keepAlive = true;
+
+    /**
+     * The maximum time a persistent connection may stay idle whilst waiting for the next request.
+     * <p>
+     * If the client does not begin sending the next request within the specified timeout, the connection is closed.
+     */
+    private Tuple<Long, TimeUnit> keepAliveTimeout = new Tuple<>(5L, TimeUnit.SECONDS);
+
+    /**
+     * The maximum amount of requests that can be processed over a single persistent connection.
+     * <p>
+     * After the limit is reached, the server responds with a `Connection: close` header and closes the connection.
+     */
+    private int maxKeepAliveRequests = 1000;
+
+    /**
+     * The maximum amount of pipelined requests that can be processed at once over a single connection.
+     * <p>
+     * Clients may send multiple requests without waiting for the responses. VoidHttp begins processing the next
+     * request right after the previous one was read, but the responses are written in the order of the requests.
+     * If this many responses are waiting to be written, VoidHttp stops reading the next request until they are sent.
+     * <p>
+     * Set this to 1 to process the requests of a connection one after another.
+     */
+    private int maxPipelinedRequests = 16;
+
     /**
      * The maximum amount of concurrent connections that are processed by VoidHttp.
      * <p>
@@ -93,6 +208,45 @@ public class ServerConfig {
      */
     private int maxConcurrentConnections = 10_000;
 
+    /**
+     * The maximum amount of connections that may wait for a free connection slot, if the server is at the
+     * {@link #maxConcurrentConnections} limit.
+     * <p>
+     * The waiting connections are admitted in the order of their arrival, as soon as the older connections
+     * are closed. If the queue is full, or a connection has not been admitted within the {@link #admissionTimeout},
+     * the connection is rejected. Set this to 0 to reject the connections right away.
+     */
+    private int admissionQueueSize = 0;
+
+    /**
+     * The maximum time a connection may wait in the admission queue, before it is rejected.
+     */
+    private Tuple<Long, TimeUnit> admissionTimeout = new Tuple<>(1L, TimeUnit.SECONDS);
+
+    /**
+     * The indication, whether a `503 Service Unavailable` response should be sent to the rejected connections,
+     * before they are closed.
+     * <p>
+     * Clients and proxies can back off gracefully this way, instead of retrying the connection right away,
+     * as they would do after a connection reset.
+     */
+    private boolean overloadResponse = true;
+
+    /**
+     * The amount of seconds the rejected clients are asked to wait, before retrying the request.
+     * This is sent in the `Retry-After` header of the `503 Service Unavailable` responses.
+     */
+    private int retryAfter = 1;
+
+    /**
+     * The maximum amount of rejected connections, that are drained at once after the overload response was sent.
+     * <p>
+     * The rejected connections are not counted against the {@link #maxConcurrentConnections} limit, so this
+     * bounds the sockets and the buffers held by the rejected clients during an overload. The connections that are
+     * rejected whilst this many connections are being drained, are closed right away.
+     */
+    private int maxDrainingConnections = 256;
+
     /**
      * The indication, whether the server provider should be displayed in the response headers.
      * <p>
@@ -108,7 +262,48 @@ public class ServerConfig {
     private boolean sendStackTrace = true;
 
     /**
-     * The maximum number of pending connections that can be queued.
+     * The maximum number of pending connections that can be queued by the listening socket,
+     * before they are accepted by the server.
+     * <p>
+     * The operating system may limit this value, for example Linux caps it at `net.core.somaxconn`.
+     * Set this to 0 to use the default of the platform, that is usually too low for busy servers.
+     */
+    private int backlog = 1024;
+
+    /**
+     * The indication, whether Nagle's algorithm should be disabled on the accepted socket channels.
+     * <p>
+     * Nagle's algorithm delays small writes until the previous ones are acknowledged, which, combined with
+     * the delayed acknowledgements of the clients, may delay small responses by tens of milliseconds.
+     * VoidHttp writes each response at once, so there is nothing to be gained by delaying them.
+     */
+    private boolean tcpNoDelay = true;
+
+    /**
+     * The indication, whether TCP keep-alive probes should be sent on the idle accepted socket channels.
+     * <p>
+     * This is not related to HTTP persistent connections, see {@link #keepAlive} for that.
+     */
+    private boolean socketKeepAlive = false;
+
+    /**
+     * The indication, whether the listening address may be reused, whilst previous connections
+     * of the address are still in the `TIME_WAIT` state. This lets the server be restarted right away.
+     */
+    private boolean reuseAddress = true;
+
+    /**
+     * The size in bytes of the socket receive buffers. This is set on the listening socket,
+     * so that the accepted sockets inherit it before the TCP window is negotiated.
+     * <p>
+     * Set this to 0 to use the default of the operating system, which auto-tunes the buffer size in most cases.
+     */
+    private int receiveBufferSize = 0;
+
+    /**
+     * The size in bytes of the socket send buffers of the accepted socket channels.
+     * <p>
+     * Set this to 0 to use the default of the operating system, which auto-tunes the buffer size in most cases.
      */
-    private int backlog = 0;
+    private int sendBufferSize = 0;
 }
@@ -1,27 +1,48 @@
 package net.voidhttp;
 
 import dev.inventex.octa.console.Logger;
+import dev.inventex.octa.data.primitive.Tuple;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.AsynchronousServerSocketChannel;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.CompletionHandler;
-import java.util.Collections;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Consumer;
+import java.nio.channels.ShutdownChannelGroupException;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Represents a pool of concurrent socket channels. Each socket channel is cached here
  * until they are processed by a worker thread.
+ * <p>
+ * The connections are admitted using a lock-free stack of connection ids, so the server never exceeds
+ * the {@link ServerConfig#getMaxConcurrentConnections()} limit, even if many connections are accepted at once.
  */
-@RequiredArgsConstructor
 public class SocketChannelPool {
     /**
-     * The asynchronous server socket channel of the server.
+     * The maximum time in milliseconds to wait for a rejected client to close the connection,
+     * measured from the moment the overload response has been written.
      */
-    private final AsynchronousServerSocketChannel server;
+    private static final long DRAIN_TIMEOUT = 1000;
+
+    /**
+     * The time in milliseconds to wait before accepting again, after the listening channel has failed to accept
+     * a connection, for example because the process has run out of file descriptors.
+     */
+    private static final long ACCEPT_RETRY_DELAY = 100;
 
     /**
      * The configuration of the http server.
@@ -29,59 +50,374 @@ public class SocketChannelPool {
     private final ServerConfig config;
 
     /**
-     * The handler for processing successful socket channel connections.
+     * The handler for processing successful socket channel connections, that receives the connection id.
+     */
+    private final ObjIntConsumer<AsynchronousSocketChannel> acceptHandler;
+
+    /**
+     * The socket channels of the active connections, indexed by their connection ids.
+     */
+    private final AtomicReferenceArray<AsynchronousSocketChannel> channels;
+
+    /**
+     * The links of the free connection id stack, each element is the id below the id of the index.
+     */
+    private final AtomicIntegerArray freeLinks;
+
+    /**
+     * The top of the free connection id stack. The lower 32 bits hold the id on the top of the stack,
+     * or -1 if the stack is empty, and the higher 32 bits hold a stamp that is increased on each update.
+     */
+    private final AtomicLong freeHead = new AtomicLong();
+
+    /**
+     * The amount of connections that have been accepted.
+     */
+    private final AtomicLong acceptedCount = new AtomicLong();
+
+    /**
+     * The amount of connections that have been rejected, because the server was at its capacity.
      */
-    private final Consumer<AsynchronousSocketChannel> acceptHandler;
+    private final AtomicLong rejectedCount = new AtomicLong();
 
     /**
-     * The concurrent set of socket channels.
+     * The amount of connections that are currently being processed.
      */
-    private Set<AsynchronousSocketChannel> channels;
+    private final AtomicInteger activeCount = new AtomicInteger();
 
     /**
      * The last time the server notified the user about the max concurrent connections.
      */
-    private long lastNotify = -1;
+    private final AtomicLong lastNotify = new AtomicLong(-1);
+
+    /**
+     * The queue of the connections that are waiting for a free connection slot.
+     */
+    private final Queue<Waiter> admissionQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The amount of connections that are waiting in the admission queue.
+     */
+    private final AtomicInteger queuedCount = new AtomicInteger();
+
+    /**
+     * The amount of rejected connections, that are currently being drained.
+     */
+    private final AtomicInteger drainingCount = new AtomicInteger();
+
+    /**
+     * The pre-encoded response that is sent to the rejected connections.
+     */
+    private final byte[] overloadResponse;
+
+    /**
+     * Initialize the socket channel pool.
+     * @param config the configuration of the http server
+     * @param acceptHandler the handler for processing successful socket channel connections
+     */
+    public SocketChannelPool(ServerConfig config, ObjIntConsumer<AsynchronousSocketChannel> acceptHandler) {
+        this.config = config;
+        this.acceptHandler = acceptHandler;
+
+        int capacity = config.getMaxConcurrentConnections();
+        channels = new AtomicReferenceArray<>(capacity);
+
+        // initially every connection id is free, each id links to the one below it
+        freeLinks = new AtomicIntegerArray(capacity);
+        for (int id = 0; id < capacity; id++)
+            freeLinks.set(id, id - 1);
+        freeHead.set(capacity - 1);
+
+        // encode the response of the rejected connections once
+        overloadResponse = (
+            "HTTP/1.1 503 Service Unavailable\r\n" +
+            "Retry-After: " + config.getRetryAfter() + "\r\n" +
+            "Content-Length: 0\r\n" +
+            "Connection: close\r\n\r\n"
+        ).getBytes(StandardCharsets.US_ASCII);
+    }
 
     /**
      * Accept the next incoming socket channel connection.
      * @param channel the socket channel to accept
      */
-    @SneakyThrows
     private void acceptChannel(AsynchronousSocketChannel channel) {
-        // accept the channel if the server can handle more connections
-        if (channels.size() < config.getMaxConcurrentConnections()) {
-            channels.add(channel);
-            acceptHandler.accept(channel);
+        // the connection is most likely already broken, if the options cannot be set
+        try {
+            configureChannel(channel);
+        } catch (IOException e) {
+            closeChannel(channel);
             return;
         }
 
-        // reject the channel if the server cannot handle more connections
-        channel.close();
+        // accept the channel if the server can handle more connections
+        int id = acquireId();
+        if (id >= 0) {
+            admitChannel(channel, id);
+            return;
+        }
 
         // notify the user about the max concurrent connections
-        if (lastNotify < 0 || System.currentTimeMillis() - lastNotify > 1000) {
+        long now = System.currentTimeMillis();
+        long last = lastNotify.get();
+        if ((last < 0 || now - last > 1000) && lastNotify.compareAndSet(last, now))
             Logger.error("[VoidHttp] Max concurrent connections reached.");
-            lastNotify = System.currentTimeMillis();
+
+        // reject the channel if the admission queue is full as well
+        if (queuedCount.incrementAndGet() > config.getAdmissionQueueSize()) {
+            queuedCount.decrementAndGet();
+            rejectChannel(channel);
+            return;
+        }
+
+        // let the channel wait for a connection to be released
+        Waiter waiter = new Waiter(channel);
+        admissionQueue.offer(waiter);
+
+        // reject the channel, if it has not been admitted in time
+        Tuple<Long, TimeUnit> timeout = config.getAdmissionTimeout();
+        CompletableFuture.delayedExecutor(timeout.getFirst(), timeout.getSecond()).execute(() -> {
+            if (!waiter.claimed.compareAndSet(false, true))
+                return;
+            // the channel might have been polled already by a connection, that saw it timed out
+            if (admissionQueue.remove(waiter))
+                queuedCount.decrementAndGet();
+            rejectChannel(channel);
+        });
+
+        // a connection may have been released whilst the channel was being queued
+        id = acquireId();
+        if (id >= 0)
+            admitNext(id);
+    }
+
+    /**
+     * Apply the configured socket options to the accepted socket channel.
+     * @param channel the accepted socket channel
+     * @throws IOException error whilst setting the socket options
+     */
+    private void configureChannel(AsynchronousSocketChannel channel) throws IOException {
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, config.isTcpNoDelay());
+        channel.setOption(StandardSocketOptions.SO_KEEPALIVE, config.isSocketKeepAlive());
+        if (config.getReceiveBufferSize() > 0)
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, config.getReceiveBufferSize());
+        if (config.getSendBufferSize() > 0)
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, config.getSendBufferSize());
+    }
+
+    /**
+     * Register the channel in the pool, and begin processing its connection.
+     * @param channel the socket channel to admit
+     * @param id the acquired connection id of the channel
+     */
+    private void admitChannel(AsynchronousSocketChannel channel, int id) {
+        channels.set(id, channel);
+        activeCount.incrementAndGet();
+        acceptedCount.incrementAndGet();
+        acceptHandler.accept(channel, id);
+    }
+
+    /**
+     * Admit the next channel that is waiting in the admission queue using the released connection id,
+     * or put the id back on the stack of free ids, if no channels are waiting.
+     * @param id the released connection id
+     */
+    private void admitNext(int id) {
+        Waiter waiter;
+        while ((waiter = admissionQueue.poll()) != null) {
+            queuedCount.decrementAndGet();
+            // skip the channels that have already timed out
+            if (waiter.claimed.compareAndSet(false, true)) {
+                admitChannel(waiter.channel, id);
+                return;
+            }
+        }
+
+        releaseId(id);
+    }
+
+    /**
+     * Reject the channel, because the server is at its capacity. Send a `503 Service Unavailable` response
+     * before closing the channel, so the client knows when to retry the request.
+     * @param channel the socket channel to reject
+     */
+    private void rejectChannel(AsynchronousSocketChannel channel) {
+        rejectedCount.incrementAndGet();
+        if (!config.isOverloadResponse()) {
+            closeChannel(channel);
+            return;
+        }
+
+        // the rejected connections are not counted against the connection limit, so make sure that
+        // they cannot pile up during an overload, close them right away, if too many are being drained
+        if (drainingCount.incrementAndGet() > config.getMaxDrainingConnections()) {
+            drainingCount.decrementAndGet();
+            closeChannel(channel);
+            return;
+        }
+
+        channel.write(ByteBuffer.wrap(overloadResponse), null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer bytesWritten, Void attachment) {
+                // signal the end of the response, and wait for the client to close the connection,
+                // otherwise the unread request might make the socket reset the connection before
+                // the client reads the response
+                try {
+                    channel.shutdownOutput();
+                } catch (IOException e) {
+                    closeDrained(channel);
+                    return;
+                }
+                long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT;
+                drainChannel(channel, ByteBuffer.allocate(512), deadline);
+            }
+
+            @Override
+            public void failed(Throwable error, Void attachment) {
+                closeDrained(channel);
+            }
+        });
+    }
+
+    /**
+     * Discard the data sent by a rejected client, until it closes the connection, or the deadline passes.
+     * The deadline is not extended by the reads, so a client cannot keep the connection open by sending
+     * data slowly.
+     * @param channel the rejected socket channel
+     * @param buffer the buffer to read the discarded data into
+     * @param deadline the time in milliseconds, when the channel is closed at the latest
+     */
+    private void drainChannel(AsynchronousSocketChannel channel, ByteBuffer buffer, long deadline) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            closeDrained(channel);
+            return;
         }
+
+        buffer.clear();
+        channel.read(buffer, remaining, TimeUnit.MILLISECONDS, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer bytesRead, Void attachment) {
+                if (bytesRead < 0)
+                    closeDrained(channel);
+                else
+                    drainChannel(channel, buffer, deadline);
+            }
+
+            @Override
+            public void failed(Throwable error, Void attachment) {
+                closeDrained(channel);
+            }
+        });
     }
 
     /**
-     * Release the given socket channel from the pool after it has been processed.
-     * @param channel the socket channel to release
+     * Close the socket channel of a rejected connection, that is no longer being drained.
+     * @param channel the rejected socket channel
      */
-    public void releaseChannel(AsynchronousSocketChannel channel) {
-        channels.remove(channel);
+    private void closeDrained(AsynchronousSocketChannel channel) {
+        drainingCount.decrementAndGet();
+        closeChannel(channel);
     }
 
     /**
-     * Accept incoming client socket connections recursively.
+     * Close the socket channel, ignoring the errors.
+     * @param channel the socket channel to close
      */
-    public void acceptSockets() {
-        channels = Collections.newSetFromMap(new ConcurrentHashMap<>(
-            config.getMaxConcurrentConnections()
-        ));
+    private void closeChannel(AsynchronousSocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
 
+    /**
+     * Release the socket channel of the given connection from the pool after it has been processed.
+     * @param id the id of the connection to release
+     */
+    public void releaseChannel(int id) {
+        // make sure to release the connection only once
+        if (channels.getAndSet(id, null) == null)
+            return;
+
+        activeCount.decrementAndGet();
+        // hand the connection id over to the next waiting channel
+        admitNext(id);
+    }
+
+    /**
+     * Take a free connection id from the stack of free ids.
+     * @return the acquired connection id, or -1 if the server is at its capacity
+     */
+    private int acquireId() {
+        while (true) {
+            long head = freeHead.get();
+            int id = (int) head;
+            if (id < 0)
+                return -1;
+
+            // the stamp prevents the stack from being corrupted, if the same id is released and acquired
+            // again by other threads, whilst this thread is trying to acquire it
+            long next = ((head >>> 32) + 1) << 32 | (freeLinks.get(id) & 0xFFFFFFFFL);
+            if (freeHead.compareAndSet(head, next))
+                return id;
+        }
+    }
+
+    /**
+     * Put the connection id back on the stack of free ids.
+     * @param id the connection id to release
+     */
+    private void releaseId(int id) {
+        while (true) {
+            long head = freeHead.get();
+            freeLinks.set(id, (int) head);
+            long next = ((head >>> 32) + 1) << 32 | (id & 0xFFFFFFFFL);
+            if (freeHead.compareAndSet(head, next))
+                return;
+        }
+    }
+
+    /**
+     * Get the amount of connections that have been accepted.
+     * @return the accepted connection count
+     */
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    /**
+     * Get the amount of connections that have been rejected, because the server was at its capacity.
+     * @return the rejected connection count
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Get the amount of connections that are currently being processed.
+     * @return the active connection count
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Get the amount of connections that are waiting for a free connection slot.
+     * @return the queued connection count
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * Accept incoming client socket connections of the listening channel recursively.
+     * <p>
+     * Each listening channel of the server runs its own acceptor loop, whilst the connections of
+     * all the listeners are admitted by this pool, so they share the connection limit.
+     * @param server the listening server socket channel
+     */
+    public void acceptSockets(AsynchronousServerSocketChannel server) {
         // accept the first connection
         server.accept(null, new CompletionHandler<AsynchronousSocketChannel, Void>() {
             /**
@@ -107,8 +443,41 @@ public class SocketChannelPool {
              */
             @Override
             public void failed(Throwable exc, Void attachment) {
+                // the listening channel has been closed, because the server is shutting down
+                if (!server.isOpen() || exc instanceof AsynchronousCloseException
+                    || exc instanceof ShutdownChannelGroupException)
+                    return;
                 System.err.println("[VoidHttp] Failed to accept connection: " + exc.getMessage());
+
+                // the error may be transient, such as running out of file descriptors under load, keep accepting
+                // after a short back-off, otherwise the connections routed to this listener would never be accepted
+                CompletionHandler<AsynchronousSocketChannel, Void> handler = this;
+                CompletableFuture.delayedExecutor(ACCEPT_RETRY_DELAY, TimeUnit.MILLISECONDS).execute(() -> {
+                    if (!server.isOpen())
+                        return;
+                    try {
+                        server.accept(null, handler);
+                    } catch (ShutdownChannelGroupException e) {
+                        // the server has been shut down during the back-off
+                    }
+                });
             }
         });
     }
+
+    /**
+     * Represents a socket channel that is waiting in the admission queue.
+     */
+    @RequiredArgsConstructor
+    private static class Waiter {
+        /**
+         * The waiting socket channel.
+         */
+        private final AsynchronousSocketChannel channel;
+
+        /**
+         * The indication, whether the channel has been either admitted or rejected.
+         */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+    }
 }
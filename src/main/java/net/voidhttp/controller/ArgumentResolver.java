@@ -0,0 +1,20 @@
+package net.voidhttp.controller;
+
+import net.voidhttp.request.Request;
+import net.voidhttp.response.Response;
+
+/**
+ * Represents a resolver of a controller method argument, that is created for each parameter of the method
+ * when the controller is injected, so the type of the parameter is not examined for each request.
+ */
+@FunctionalInterface
+public interface ArgumentResolver {
+    /**
+     * Resolve the value of the argument from the request context.
+     * @param request the http request
+     * @param response the http response
+     * @return the value to be passed to the parameter
+     * @throws Exception error whilst resolving the argument
+     */
+    Object resolve(Request request, Response response) throws Exception;
+}
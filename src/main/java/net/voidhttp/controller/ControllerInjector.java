@@ -2,6 +2,8 @@ package net.voidhttp.controller;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
 import dev.inventex.octa.concurrent.future.Future;
 import dev.inventex.octa.console.Logger;
 import lombok.SneakyThrows;
@@ -10,12 +12,14 @@ import net.voidhttp.controller.dto.Dto;
 import net.voidhttp.controller.guard.UseGuard;
 import net.voidhttp.controller.guard.Handler;
 import net.voidhttp.controller.guard.Guard;
-import net.voidhttp.controller.handler.HandlerType;
 import net.voidhttp.controller.route.*;
 import net.voidhttp.controller.validator.*;
+import net.voidhttp.response.Response;
 import net.voidhttp.router.Middleware;
 import net.voidhttp.util.asset.MIMEType;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
@@ -23,6 +27,8 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Represents a manager that registers controller blueprint classes and attaches
@@ -44,6 +50,35 @@ public class ControllerInjector {
      */
     private static final Gson GSON = new Gson();
 
+    /**
+     * The writer of the results, that cannot be sent as a response.
+     */
+    private static final ResultWriter INVALID_WRITER = (response, result) -> {
+        Logger.error("Handler must return a CharSequence, JsonObject, or DTO");
+        response.sendError(new IllegalArgumentException("Handler must return a CharSequence, JsonObject, or DTO"));
+    };
+
+    /**
+     * The cache of the result writers of the runtime classes of the completed asynchronous results.
+     */
+    private static final ClassValue<ResultWriter> VALUE_WRITERS = new ClassValue<>() {
+        @Override
+        protected ResultWriter computeValue(Class<?> type) {
+            return createValueWriter(type);
+        }
+    };
+
+    /**
+     * The cache of the json type adapters of the data transfer object classes.
+     */
+    private static final ClassValue<TypeAdapter<Object>> ADAPTERS = new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected TypeAdapter<Object> computeValue(Class<?> type) {
+            return (TypeAdapter<Object>) GSON.getAdapter(type);
+        }
+    };
+
     /**
      * Inject all the methods of the specified controller class into the route handler pipeline.
      * @param server the http server to inject the controller into
@@ -166,135 +201,219 @@ public class ControllerInjector {
     }
 
     /**
-     * Create a middleware that invokes the specified controller method.
+     * Create a middleware that invokes the specified controller method. The method invoker and the argument
+     * resolvers are created here once, so the request handling only resolves the arguments and invokes the method.
      * @param method the controller class method
      * @param controller the controller instance
      * @return the middleware hook
      * @param <T> the type of the controller
      */
+    @SneakyThrows
     private <T> Middleware createHook(Method method, List<ParameterMeta> metaList, T controller, boolean isGuard) {
-        return (request, response) -> {
-            // create an array to hold the resolved arguments for the method
-            Object[] args = new Object[metaList.size()];
+        // create the direct invoker of the method and the resolvers of the method parameters
+        MethodInvoker invoker = new MethodInvoker(method, controller);
+        ArgumentResolver[] resolvers = new ArgumentResolver[metaList.size()];
+        for (int i = 0; i < resolvers.length; i++)
+            resolvers[i] = createResolver(metaList.get(i));
 
-            // retrieve the return type of the method
-            Class<?> returnType = method.getReturnType();
+        // create the writer of the method results from the return type of the method
+        ResultWriter writer = createWriter(method.getReturnType(), isGuard);
 
+        return (request, response) -> {
             // transform the request data to the method parameters
-            for (int i = 0; i < metaList.size(); i++) {
-                ParameterMeta meta = metaList.get(i);
-                // handle raw body text argument
-                if (meta.getHandlerType() == HandlerType.TEXT)
-                    args[i] = request.body();
-
-                // handle parsed json body argument
-                else if (meta.getHandlerType() == HandlerType.JSON) {
-                    // validate the json syntax even if the parameter expects a CharSequence
-                    // this ensures that a valid JSON is passed to @Json annotated parameters
-                    Object json = GSON.fromJson(request.body(), meta.getType());
-                    if (CharSequence.class.isAssignableFrom(meta.getType()))
-                        args[i] = json.toString();
-                    else
-                        args[i] = json;
-                }
+            Object[] args = new Object[resolvers.length];
+            for (int i = 0; i < resolvers.length; i++)
+                args[i] = resolvers[i].resolve(request, response);
 
-                // handle request context argument
-                else if (meta.getHandlerType() == HandlerType.REQUEST)
-                    args[i] = request;
-
-                // handle response context argument
-                else if (meta.getHandlerType() == HandlerType.RESPONSE)
-                    args[i] = response;
-
-                // handle data transform object argument
-                else if (meta.getHandlerType() == HandlerType.BODY) {
-                    Object value = GSON.fromJson(request.body(), meta.getType());
-                    try {
-                        Validator.validate(value);
-                    } catch (Exception e) {
-                        System.err.println("Validation failed for " + meta.getType().getSimpleName());
-                        e.printStackTrace();
-                    }
-                    args[i] = value;
-                }
+            // invoke the route listener method using transformed arguments
+            Object result = null;
+            try {
+                result = invoker.invoke(args);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
 
-                // handle request url parameters argument
-                else if (meta.getHandlerType() == HandlerType.PARAMS)
-                    args[i] = request.parameters();
+            // write the result using the writer of the return type
+            writer.write(response, result);
+        };
+    }
 
-                // handle request query argument
-                else if (meta.getHandlerType() == HandlerType.QUERY)
-                    args[i] = request.query();
+    /**
+     * Create the writer of the controller method results, that sends the result of the declared return type.
+     * @param returnType the declared return type of the method
+     * @param isGuard true if the method is a guard, which does not have to send a response
+     * @return the result writer
+     */
+    private ResultWriter createWriter(Class<?> returnType, boolean isGuard) {
+        // handle asynchronous http response, the response is written when the future completes,
+        // so the request thread is released immediately, the value is written by the writer of its runtime class
+        if (Future.class.isAssignableFrom(returnType)) {
+            return (response, result) -> {
+                if (result == null) {
+                    writeValue(response, null);
+                    return;
+                }
+                ((Future<?>) result)
+                    .then(value -> writeValue(response, value))
+                    .except(error -> writeError(response, error));
+            };
+        }
 
-                // handle request headers argument
-                else if (meta.getHandlerType() == HandlerType.HEADERS)
-                    args[i] = request.headers();
+        // handle asynchronous http response of a completion stage, such as a CompletableFuture
+        if (CompletionStage.class.isAssignableFrom(returnType)) {
+            return (response, result) -> {
+                if (result == null) {
+                    writeValue(response, null);
+                    return;
+                }
+                ((CompletionStage<?>) result).whenComplete((value, error) -> {
+                    if (error == null)
+                        writeValue(response, value);
+                    // unwrap the error of the stage, that failed because a previous stage has failed
+                    else if (error instanceof CompletionException && error.getCause() != null)
+                        writeError(response, error.getCause());
+                    else
+                        writeError(response, error);
+                });
+            };
+        }
 
-                // handle request cookies argument
-                else if (meta.getHandlerType() == HandlerType.COOKIES)
-                    args[i] = request.cookies();
+        ResultWriter writer = createValueWriter(returnType);
+        if (writer != INVALID_WRITER || !isGuard)
+            return writer;
 
-                // handle request session argument
-                else if (meta.getHandlerType() == HandlerType.SESSION)
-                    args[i] = request.session();
+        // the guards do not have to send a response
+        return (response, result) -> {};
+    }
 
-                // handle passed request data argument
-                else if (meta.getHandlerType() == HandlerType.DATA)
-                    args[i] = request.data();
-            }
+    /**
+     * Write the completed value of an asynchronous result, using the cached writer of the runtime class of the value.
+     * @param response the http response
+     * @param value the completed value
+     */
+    private static void writeValue(Response response, Object value) {
+        ResultWriter writer = value != null ? VALUE_WRITERS.get(value.getClass()) : INVALID_WRITER;
+        try {
+            writer.write(response, value);
+        } catch (Exception e) {
+            writeError(response, e);
+        }
+    }
 
-            // invoke the route listener method using transformed arguments
-            Object result = null;
-            try {
-                method.setAccessible(true);
-                result = method.invoke(controller, args);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+    /**
+     * Write the error of an asynchronous result, that has failed to complete.
+     * @param response the http response
+     * @param error the error of the result
+     */
+    private static void writeError(Response response, Throwable error) {
+        error.printStackTrace();
+        try {
+            response.sendError(error);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-            // handle raw string http response
-            if (CharSequence.class.isAssignableFrom(returnType))
-                response.send(String.valueOf(result), MIMEType.JSON);
+    /**
+     * Create the writer of the results of the specified type.
+     * @param type the type of the results
+     * @return the result writer, or {@link #INVALID_WRITER} if the type cannot be sent
+     */
+    private static ResultWriter createValueWriter(Class<?> type) {
+        // handle raw string http response
+        if (CharSequence.class.isAssignableFrom(type))
+            return (response, result) -> response.send(String.valueOf(result), MIMEType.JSON);
+
+        // handle wrapped json http response
+        if (JsonObject.class.isAssignableFrom(type))
+            return (response, result) -> response.send(result.toString(), MIMEType.JSON);
+
+        // handle wrapped dto http response, the type adapter of the dto is resolved only once,
+        // the subclasses of the declared type are serialized by the cached adapter of their runtime class
+        if (type.isAnnotationPresent(Dto.class)) {
+            TypeAdapter<Object> adapter = ADAPTERS.get(type);
+            return (response, result) -> {
+                TypeAdapter<Object> writer = result == null || result.getClass() == type
+                    ? adapter
+                    : ADAPTERS.get(result.getClass());
+                response.send(toJson(writer, result), MIMEType.JSON);
+            };
+        }
 
-            // handle wrapped json http response
-            else if (JsonObject.class.isAssignableFrom(returnType))
-                response.send(result.toString(), MIMEType.JSON);
+        // handle invalid return type
+        return INVALID_WRITER;
+    }
 
-            // handle wrapped dto http response
-            else if (returnType.isAnnotationPresent(Dto.class))
-                response.send(GSON.toJson(result), MIMEType.JSON);
+    /**
+     * Serialize the value using the type adapter, with the settings of the json serializer, such as omitting
+     * the null fields and escaping the html characters, the same way as {@link Gson#toJson(Object)} does.
+     * @param adapter the type adapter of the value
+     * @param value the value to serialize
+     * @return the json string of the value
+     * @throws IOException error whilst writing the json
+     */
+    private static String toJson(TypeAdapter<Object> adapter, Object value) throws IOException {
+        StringWriter writer = new StringWriter();
+        JsonWriter json = GSON.newJsonWriter(writer);
+        // allow top-level primitives and special values, as the json serializer does
+        json.setLenient(true);
+        adapter.write(json, value);
+        return writer.toString();
+    }
 
-            // handle asynchronous http response
-            else if (returnType.isAssignableFrom(Future.class)) {
-                // complete the future on the request thread
-                Future<?> future = (Future<?>) result;
+    /**
+     * Create the resolver of a controller method argument, that transforms the request data to the parameter.
+     * @param meta the metadata of the method parameter
+     * @return the argument resolver
+     */
+    private ArgumentResolver createResolver(ParameterMeta meta) {
+        Class<?> type = meta.getType();
+        return switch (meta.getHandlerType()) {
+            // handle raw body text argument
+            case TEXT -> (request, response) -> request.body();
+
+            // handle parsed json body argument
+            // validate the json syntax even if the parameter expects a CharSequence
+            // this ensures that a valid JSON is passed to @Json annotated parameters
+            case JSON -> CharSequence.class.isAssignableFrom(type)
+                ? (request, response) -> GSON.fromJson(request.body(), type).toString()
+                : (request, response) -> GSON.fromJson(request.body(), type);
+
+            // handle request context argument
+            case REQUEST -> (request, response) -> request;
+
+            // handle response context argument
+            case RESPONSE -> (request, response) -> response;
+
+            // handle data transform object argument
+            case BODY -> (request, response) -> {
+                Object value = GSON.fromJson(request.body(), type);
                 try {
-                    Object value = future.get();
+                    Validator.validate(value);
+                } catch (Exception e) {
+                    System.err.println("Validation failed for " + type.getSimpleName());
+                    e.printStackTrace();
+                }
+                return value;
+            };
 
-                    // handle raw string http response
-                    if (CharSequence.class.isAssignableFrom(value.getClass()))
-                        response.send(String.valueOf(value), MIMEType.JSON);
+            // handle request url parameters argument
+            case PARAMS -> (request, response) -> request.parameters();
 
-                    // handle wrapped json http response
-                    else if (JsonObject.class.isAssignableFrom(value.getClass()))
-                        response.send(value.toString(), MIMEType.JSON);
+            // handle request query argument
+            case QUERY -> (request, response) -> request.query();
 
-                    // handle wrapped dto http response
-                    else if (value.getClass().isAnnotationPresent(Dto.class))
-                        response.send(GSON.toJson(value), MIMEType.JSON);
-                }
-                // handle exception whilst completing the future
-                catch (Exception e) {
-                    e.printStackTrace();
-                    response.sendError(e);
-                }
-            }
+            // handle request headers argument
+            case HEADERS -> (request, response) -> request.headers();
 
-            // handle invalid return type
-            else if (!isGuard) {
-                Logger.error("Handler must return a CharSequence, JsonObject, or DTO");
-                response.sendError(new IllegalArgumentException("Handler must return a CharSequence, JsonObject, or DTO"));
-            }
+            // handle request cookies argument
+            case COOKIES -> (request, response) -> request.cookies();
+
+            // handle request session argument
+            case SESSION -> (request, response) -> request.session();
+
+            // handle passed request data argument
+            case DATA -> (request, response) -> request.data();
         };
     }
 
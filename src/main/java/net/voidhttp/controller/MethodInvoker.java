@@ -0,0 +1,50 @@
+package net.voidhttp.controller;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Represents a direct invoker of a controller method, that is compiled when the controller is injected.
+ * <p>
+ * The method is resolved to a method handle bound to the controller instance, which takes the arguments as an
+ * array and returns the result as an object, so the invocation does not perform the access checks and the
+ * argument validation of the reflective calls for each request.
+ */
+public class MethodInvoker {
+    /**
+     * The method handle of the controller method, with the type of <code>(Object[])Object</code>.
+     */
+    private final MethodHandle handle;
+
+    /**
+     * Initialize the method invoker.
+     * @param method the controller method to be invoked
+     * @param target the controller instance to invoke the method on
+     * @throws IllegalAccessException if the method cannot be accessed
+     */
+    public MethodInvoker(Method method, Object target) throws IllegalAccessException {
+        // the access check is only performed once, when the method handle is created
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (!Modifier.isStatic(method.getModifiers()))
+            handle = handle.bindTo(target);
+
+        // spread the argument array to the parameters, and box the result, void methods return null
+        this.handle = handle
+            .asSpreader(Object[].class, method.getParameterCount())
+            .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    /**
+     * Invoke the controller method with the specified arguments.
+     * @param args the arguments of the method
+     * @return the result of the method, or null if the method does not return a value
+     * @throws Throwable the error thrown by the controller method
+     */
+    public Object invoke(Object[] args) throws Throwable {
+        return handle.invokeExact(args);
+    }
+}
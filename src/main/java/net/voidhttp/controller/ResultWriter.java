@@ -0,0 +1,18 @@
+package net.voidhttp.controller;
+
+import net.voidhttp.response.Response;
+
+/**
+ * Represents a writer of a controller method result, that is resolved from the return type of the method
+ * when the controller is injected, so the type of the result is not examined for each request.
+ */
+@FunctionalInterface
+public interface ResultWriter {
+    /**
+     * Write the result of the controller method to the response.
+     * @param response the http response
+     * @param result the result of the controller method
+     * @throws Exception error whilst writing the response
+     */
+    void write(Response response, Object result) throws Exception;
+}
@@ -1,124 +1,303 @@
 package net.voidhttp.controller.validator;
 
+import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
 
+/**
+ * Represents a validator of the data transfer objects, that tests the fields against their validation annotations.
+ * <p>
+ * The annotations of each class are only resolved once, when an instance of the class is first validated.
+ * The resolved checks are cached in a {@link ValidatorPlan}, the regular expressions are compiled once, and the
+ * simple character classes are tested by hand-written scanners.
+ */
 @UtilityClass
 public class Validator {
+    /**
+     * The pattern of the valid email addresses.
+     */
+    private final Pattern EMAIL = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
+
+    /**
+     * The pattern of the valid urls.
+     */
+    private final Pattern URL = Pattern.compile(
+        "^(http:\\/\\/www\\.|https:\\/\\/www\\.|http:\\/\\/|https:\\/\\/)?[a-z0-9]+([\\-\\.]{1}[a-z0-9]+)*\\.[a-z]{2,5}(:[0-9]{1,5})?(\\/.*)?$"
+    );
+
+    /**
+     * The cache of the compiled validator plans of the data transfer object classes.
+     */
+    private final ClassValue<ValidatorPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected ValidatorPlan computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
     /**
      * Validate the specified data transfer object, that it passes all the tests specified by annotations.
      * @param value the data transfer object to validate
      * @throws Exception if the data transfer object does not pass the validation
      */
     public void validate(Object value) throws Exception {
+        PLANS.get(value.getClass()).validate(value);
+    }
+
+    /**
+     * Compile the validator plan of the specified data transfer object class.
+     * @param type the class of the data transfer object
+     * @return the compiled validator plan
+     */
+    @SneakyThrows
+    private ValidatorPlan compile(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        List<ValidatorPlan.Check[]> checks = new ArrayList<>();
+
         // check all the fields of the data transfer object
-        for (Field field : value.getClass().getDeclaredFields()) {
-            // make sure that the field is accessible
-            field.setAccessible(true);
-
-            // handle string value length validation
-            if (field.isAnnotationPresent(Length.class)) {
-                // get the required length of the string
-                Length length = field.getAnnotation(Length.class);
-                String str = (String) field.get(value);
+        for (Field field : type.getDeclaredFields()) {
+            List<ValidatorPlan.Check> fieldChecks = compile(field);
+            // ignore the fields, that are not validated
+            if (fieldChecks.isEmpty())
+                continue;
+            fields.add(field);
+            checks.add(fieldChecks.toArray(new ValidatorPlan.Check[0]));
+        }
+
+        return new ValidatorPlan(fields, checks);
+    }
+
+    /**
+     * Resolve the checks of the specified field from its validation annotations.
+     * @param field the field of the data transfer object
+     * @return the checks of the field, in the order they are tested
+     */
+    private List<ValidatorPlan.Check> compile(Field field) {
+        List<ValidatorPlan.Check> checks = new ArrayList<>();
+        String name = field.getName();
+
+        // handle string value length validation
+        Length length = field.getAnnotation(Length.class);
+        if (length != null) {
+            int min = length.min();
+            int max = length.max();
+            checks.add(value -> {
+                String str = (String) value;
                 // check if the length of the string is out of range
-                if (str.length() < length.min() || str.length() > length.max())
-                    throw new IllegalArgumentException("Field " + field.getName() + " length " + str.length()
-                        + " is out of range [" + length.min() + ", " + length.max() + "]");
-            }
-
-            // handle numeric value validation
-            if (field.isAnnotationPresent(IsNumeric.class)) {
-                String str = (String) field.get(value);
+                if (str.length() < min || str.length() > max)
+                    throw new IllegalArgumentException("Field " + name + " length " + str.length()
+                        + " is out of range [" + min + ", " + max + "]");
+            });
+        }
+
+        // handle numeric value validation
+        if (field.isAnnotationPresent(IsNumeric.class)) {
+            checks.add(value -> {
+                String str = (String) value;
                 // check if the string is not numeric
-                if (!str.matches("-?\\d+(\\.\\d+)?"))
-                    throw new IllegalArgumentException("Field " + field.getName() + " value " + str + " is not numeric");
-            }
+                if (!isNumeric(str))
+                    throw new IllegalArgumentException("Field " + name + " value " + str + " is not numeric");
+            });
+        }
 
-            // handle value null pointer validation
-            if (field.isAnnotationPresent(IsNotNull.class)) {
-                Object obj = field.get(value);
+        // handle value null pointer validation
+        if (field.isAnnotationPresent(IsNotNull.class)) {
+            checks.add(value -> {
                 // check if the value is null
-                if (obj == null)
-                    throw new IllegalArgumentException("Field " + field.getName() + " is null");
-            }
+                if (value == null)
+                    throw new IllegalArgumentException("Field " + name + " is null");
+            });
+        }
 
-            // handle string emptiness validation
-            if (field.isAnnotationPresent(IsNotEmpty.class)) {
-                String str = (String) field.get(value);
+        // handle string emptiness validation
+        if (field.isAnnotationPresent(IsNotEmpty.class)) {
+            checks.add(value -> {
                 // check if the string is not empty
-                if (str.isEmpty())
-                    throw new IllegalArgumentException("Field " + field.getName() + " is empty");
-            }
+                if (((String) value).isEmpty())
+                    throw new IllegalArgumentException("Field " + name + " is empty");
+            });
+        }
 
-            // handle email string validation
-            if (field.isAnnotationPresent(IsEmail.class)) {
-                String str = (String) field.get(value);
+        // handle email string validation
+        if (field.isAnnotationPresent(IsEmail.class)) {
+            checks.add(value -> {
+                String str = (String) value;
                 // check if the string is not a valid email
-                if (!str.matches("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$"))
-                    throw new IllegalArgumentException("Field " + field.getName() + " " + str + " is not an email");
-            }
+                if (!EMAIL.matcher(str).matches())
+                    throw new IllegalArgumentException("Field " + name + " " + str + " is not an email");
+            });
+        }
 
-            // handle url string validation
-            if (field.isAnnotationPresent(IsUrl.class)) {
-                String str = (String) field.get(value);
+        // handle url string validation
+        if (field.isAnnotationPresent(IsUrl.class)) {
+            checks.add(value -> {
+                String str = (String) value;
                 // check if a string is not a valid url
-                if (!str.matches("^(http:\\/\\/www\\.|https:\\/\\/www\\.|http:\\/\\/|https:\\/\\/)?[a-z0-9]+([\\-\\.]{1}[a-z0-9]+)*\\.[a-z]{2,5}(:[0-9]{1,5})?(\\/.*)?$"))
-                    throw new IllegalArgumentException("Field " + field.getName() + " " + str + " is not an url");
-            }
+                if (!URL.matcher(str).matches())
+                    throw new IllegalArgumentException("Field " + name + " " + str + " is not an url");
+            });
+        }
 
-            // handle alphanumeric string validation
-            if (field.isAnnotationPresent(IsAlphanumeric.class)) {
-                String str = (String) field.get(value);
+        // handle alphanumeric string validation
+        if (field.isAnnotationPresent(IsAlphanumeric.class)) {
+            checks.add(value -> {
+                String str = (String) value;
                 // check if a string is not alphanumeric
-                if (!str.matches("^[a-zA-Z0-9]*$"))
-                    throw new IllegalArgumentException("Field " + field.getName() + " " + str + " is not alphanumeric");
-            }
+                if (!isAlphanumeric(str))
+                    throw new IllegalArgumentException("Field " + name + " " + str + " is not alphanumeric");
+            });
+        }
 
-            // handle alphabetic string validation
-            if (field.isAnnotationPresent(IsAlphabetic.class)) {
-                String str = (String) field.get(value);
+        // handle alphabetic string validation
+        if (field.isAnnotationPresent(IsAlphabetic.class)) {
+            checks.add(value -> {
+                String str = (String) value;
                 // check if a string is not alphabetic
-                if (!str.matches("^[a-zA-Z]*$"))
-                    throw new IllegalArgumentException("Field " + field.getName() + " " + str + " is not alphabetic");
-            }
-
-            // handle strong password string validation
-            if (field.isAnnotationPresent(IsStrongPassword.class)) {
-                IsStrongPassword password = field.getAnnotation(IsStrongPassword.class);
-                String str = (String) field.get(value);
-                // check if a string is not a strong password
-                boolean tooShort = str.length() < password.minLength();
-                boolean tooFewNumbers = str.replaceAll("[^0-9]", "").length() < password.minNumbers();
-                boolean tooFewUppercase = str.replaceAll("[^A-Z]", "").length() < password.minUppercase();
-                boolean tooFewSymbols = str.replaceAll("[a-zA-Z0-9]", "").length() < password.minSymbols();
+                if (!isAlphabetic(str))
+                    throw new IllegalArgumentException("Field " + name + " " + str + " is not alphabetic");
+            });
+        }
+
+        // handle strong password string validation
+        IsStrongPassword password = field.getAnnotation(IsStrongPassword.class);
+        if (password != null) {
+            int minLength = password.minLength();
+            int minNumbers = password.minNumbers();
+            int minUppercase = password.minUppercase();
+            int minSymbols = password.minSymbols();
+            checks.add(value -> {
+                String str = (String) value;
+                // count the character classes of the password in a single pass
+                int numbers = 0;
+                int uppercase = 0;
+                int symbols = 0;
+                for (int i = 0; i < str.length(); i++) {
+                    char c = str.charAt(i);
+                    if (isDigit(c))
+                        numbers++;
+                    else if (isUppercase(c))
+                        uppercase++;
+                    else if (!isLowercase(c))
+                        symbols++;
+                }
                 // check if the password is not strong enough
-                if (tooShort || tooFewNumbers || tooFewUppercase || tooFewSymbols)
-                    throw new IllegalArgumentException("Field " + field.getName() + " " + str + " is not a strong password");
-            }
-
-            // handle custom regex string validation
-            if (field.isAnnotationPresent(Matches.class)) {
-                Matches matches = field.getAnnotation(Matches.class);
-                String str = (String) field.get(value);
+                if (str.length() < minLength || numbers < minNumbers || uppercase < minUppercase || symbols < minSymbols)
+                    throw new IllegalArgumentException("Field " + name + " " + str + " is not a strong password");
+            });
+        }
+
+        // handle custom regex string validation
+        Matches matches = field.getAnnotation(Matches.class);
+        if (matches != null) {
+            Pattern pattern = Pattern.compile(matches.value());
+            checks.add(value -> {
+                String str = (String) value;
                 // check if a string does not match the regex
-                if (!str.matches(matches.value()))
-                    throw new IllegalArgumentException("Field " + field.getName() + " " + str + " does not match the regex " + matches.value());
-            }
+                if (!pattern.matcher(str).matches())
+                    throw new IllegalArgumentException("Field " + name + " " + str + " does not match the regex " + matches.value());
+            });
+        }
 
-            // handle number sign validation
-            if (field.isAnnotationPresent(Signed.class)) {
+        // handle number sign validation
+        if (field.isAnnotationPresent(Signed.class)) {
+            checks.add(value -> {
                 // check if the field is not a number
-                Object object = field.get(value);
-                if (!(object instanceof Number))
-                    throw new IllegalStateException("Field " + field.getName() + " is not a number, cannot be sign tested");
+                if (!(value instanceof Number number))
+                    throw new IllegalStateException("Field " + name + " is not a number, cannot be sign tested");
 
-                Number number = (Number) object;
                 // check if the number is negative
                 if (number.longValue() < 0)
-                    throw new IllegalArgumentException("Field " + field.getName() + " " + number + " is negative");
-            }
+                    throw new IllegalArgumentException("Field " + name + " " + number + " is negative");
+            });
+        }
+
+        return checks;
+    }
+
+    /**
+     * Determine if the string is an optionally negative integer or decimal number.
+     * @param str the string to check
+     * @return true if the string is numeric
+     */
+    private boolean isNumeric(String str) {
+        int length = str.length();
+        int index = 0;
+        if (index < length && str.charAt(index) == '-')
+            index++;
+
+        // the integer part must have at least one digit
+        int start = index;
+        while (index < length && isDigit(str.charAt(index)))
+            index++;
+        if (index == start)
+            return false;
+        if (index == length)
+            return true;
+
+        // the fraction part must have at least one digit after the dot
+        if (str.charAt(index++) != '.' || index == length)
+            return false;
+        while (index < length && isDigit(str.charAt(index)))
+            index++;
+        return index == length;
+    }
+
+    /**
+     * Determine if the string only contains ASCII letters and digits.
+     * @param str the string to check
+     * @return true if the string is alphanumeric
+     */
+    private boolean isAlphanumeric(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (!isDigit(c) && !isUppercase(c) && !isLowercase(c))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determine if the string only contains ASCII letters.
+     * @param str the string to check
+     * @return true if the string is alphabetic
+     */
+    private boolean isAlphabetic(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (!isUppercase(c) && !isLowercase(c))
+                return false;
         }
+        return true;
+    }
+
+    /**
+     * Determine if the character is an ASCII digit.
+     * @param c the character to check
+     * @return true if the character is a digit
+     */
+    private boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Determine if the character is an ASCII uppercase letter.
+     * @param c the character to check
+     * @return true if the character is an uppercase letter
+     */
+    private boolean isUppercase(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * Determine if the character is an ASCII lowercase letter.
+     * @param c the character to check
+     * @return true if the character is a lowercase letter
+     */
+    private boolean isLowercase(char c) {
+        return c >= 'a' && c <= 'z';
     }
 }
@@ -0,0 +1,87 @@
+package net.voidhttp.controller.validator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Represents a compiled validator of a data transfer object class, that is created once for each class.
+ * <p>
+ * The plan only holds the fields that have validation annotations. Each field is read by a method handle getter,
+ * that is bound when the plan is compiled, and the value is tested by the checks resolved from the annotations,
+ * so the validation does not perform any reflective lookups or access checks.
+ */
+class ValidatorPlan {
+    /**
+     * Represents a test of a field value, that is resolved from a validation annotation.
+     */
+    @FunctionalInterface
+    interface Check {
+        /**
+         * Test the value of the field.
+         * @param value the value of the field
+         * @throws IllegalArgumentException if the value does not pass the test
+         */
+        void test(Object value);
+    }
+
+    /**
+     * The getters of the validated fields, with the type of <code>(Object)Object</code>.
+     */
+    private final MethodHandle[] getters;
+
+    /**
+     * The names of the validated fields.
+     */
+    private final String[] names;
+
+    /**
+     * The checks of each validated field, in the order they are tested.
+     */
+    private final Check[][] checks;
+
+    /**
+     * Initialize the validator plan.
+     * @param fields the validated fields
+     * @param checks the checks of each validated field
+     * @throws IllegalAccessException if a field cannot be accessed
+     */
+    ValidatorPlan(List<Field> fields, List<Check[]> checks) throws IllegalAccessException {
+        int size = fields.size();
+        getters = new MethodHandle[size];
+        names = new String[size];
+        this.checks = checks.toArray(new Check[0][]);
+
+        for (int i = 0; i < size; i++) {
+            Field field = fields.get(i);
+            // the access check is only performed once, when the getter is created
+            field.setAccessible(true);
+            names[i] = field.getName();
+            MethodHandle getter = MethodHandles.lookup().unreflectGetter(field);
+            // the static fields do not take the instance, drop it to keep the same getter type
+            if (getter.type().parameterCount() == 0)
+                getter = MethodHandles.dropArguments(getter, 0, Object.class);
+            getters[i] = getter.asType(MethodType.methodType(Object.class, Object.class));
+        }
+    }
+
+    /**
+     * Validate the specified data transfer object.
+     * @param value the data transfer object to validate
+     * @throws IllegalArgumentException if the data transfer object does not pass the validation
+     */
+    void validate(Object value) {
+        for (int i = 0; i < getters.length; i++) {
+            Object field;
+            try {
+                field = (Object) getters[i].invokeExact(value);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Unable to read field " + names[i], e);
+            }
+            for (Check check : checks[i])
+                check.test(field);
+        }
+    }
+}
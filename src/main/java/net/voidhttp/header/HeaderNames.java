@@ -0,0 +1,271 @@
+package net.voidhttp.header;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Represents a registry of the well-known HTTP header names.
+ * <p>
+ * The header names of the requests are interned to these constants, so the common names are not allocated for
+ * each request, and they are compared by identity before they are compared ignoring the case. The header tables
+ * are keyed by the {@link #hash(String)} of the names, that is computed from the ASCII-lowercased characters.
+ */
+@UtilityClass
+public class HeaderNames {
+    /**
+     * The `Accept` header name.
+     */
+    public final String ACCEPT = "Accept";
+
+    /**
+     * The `Accept-Encoding` header name.
+     */
+    public final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    /**
+     * The `Accept-Language` header name.
+     */
+    public final String ACCEPT_LANGUAGE = "Accept-Language";
+
+    /**
+     * The `Authorization` header name.
+     */
+    public final String AUTHORIZATION = "Authorization";
+
+    /**
+     * The `Cache-Control` header name.
+     */
+    public final String CACHE_CONTROL = "Cache-Control";
+
+    /**
+     * The `Connection` header name.
+     */
+    public final String CONNECTION = "Connection";
+
+    /**
+     * The `Content-Encoding` header name.
+     */
+    public final String CONTENT_ENCODING = "Content-Encoding";
+
+    /**
+     * The `Content-Length` header name.
+     */
+    public final String CONTENT_LENGTH = "Content-Length";
+
+    /**
+     * The `Content-Type` header name.
+     */
+    public final String CONTENT_TYPE = "Content-Type";
+
+    /**
+     * The `Cookie` header name.
+     */
+    public final String COOKIE = "Cookie";
+
+    /**
+     * The `Date` header name.
+     */
+    public final String DATE = "Date";
+
+    /**
+     * The `ETag` header name.
+     */
+    public final String ETAG = "ETag";
+
+    /**
+     * The `Expect` header name.
+     */
+    public final String EXPECT = "Expect";
+
+    /**
+     * The `Host` header name.
+     */
+    public final String HOST = "Host";
+
+    /**
+     * The `If-Modified-Since` header name.
+     */
+    public final String IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    /**
+     * The `If-None-Match` header name.
+     */
+    public final String IF_NONE_MATCH = "If-None-Match";
+
+    /**
+     * The `Keep-Alive` header name.
+     */
+    public final String KEEP_ALIVE = "Keep-Alive";
+
+    /**
+     * The `Last-Modified` header name.
+     */
+    public final String LAST_MODIFIED = "Last-Modified";
+
+    /**
+     * The `Location` header name.
+     */
+    public final String LOCATION = "Location";
+
+    /**
+     * The `Origin` header name.
+     */
+    public final String ORIGIN = "Origin";
+
+    /**
+     * The `Referer` header name.
+     */
+    public final String REFERER = "Referer";
+
+    /**
+     * The `Server` header name.
+     */
+    public final String SERVER = "Server";
+
+    /**
+     * The `Set-Cookie` header name.
+     */
+    public final String SET_COOKIE = "Set-Cookie";
+
+    /**
+     * The `Transfer-Encoding` header name.
+     */
+    public final String TRANSFER_ENCODING = "Transfer-Encoding";
+
+    /**
+     * The `Upgrade` header name.
+     */
+    public final String UPGRADE = "Upgrade";
+
+    /**
+     * The `User-Agent` header name.
+     */
+    public final String USER_AGENT = "User-Agent";
+
+    /**
+     * The `X-Forwarded-For` header name.
+     */
+    public final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    /**
+     * The well-known header names, that the names are interned to.
+     */
+    private final String[] NAMES = {
+        ACCEPT, ACCEPT_ENCODING, ACCEPT_LANGUAGE, AUTHORIZATION, CACHE_CONTROL, CONNECTION, CONTENT_ENCODING,
+        CONTENT_LENGTH, CONTENT_TYPE, COOKIE, DATE, ETAG, EXPECT, HOST, IF_MODIFIED_SINCE, IF_NONE_MATCH, KEEP_ALIVE,
+        LAST_MODIFIED, LOCATION, ORIGIN, REFERER, SERVER, SET_COOKIE, TRANSFER_ENCODING, UPGRADE, USER_AGENT,
+        X_FORWARDED_FOR
+    };
+
+    /**
+     * The open-addressed table of the well-known header names, indexed by their hashes.
+     */
+    private final String[] TABLE = createTable();
+
+    /**
+     * Create the open-addressed table of the well-known header names.
+     * @return the table of the header names
+     */
+    private String[] createTable() {
+        String[] table = new String[64];
+        for (String name : NAMES) {
+            int slot = hash(name) & (table.length - 1);
+            while (table[slot] != null)
+                slot = (slot + 1) & (table.length - 1);
+            table[slot] = name;
+        }
+        return table;
+    }
+
+    /**
+     * Calculate the case-insensitive hash of the header name.
+     * @param name header name
+     * @return the hash of the ASCII-lowercased name
+     */
+    public int hash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++)
+            hash = 31 * hash + toLowerCase(name.charAt(i));
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Calculate the case-insensitive hash of the header name, that is specified by the range of the raw bytes.
+     * @param data the raw bytes
+     * @param start the offset of the name
+     * @param end the end offset of the name
+     * @return the hash of the ASCII-lowercased name
+     */
+    public int hash(byte[] data, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + toLowerCase(data[i] & 0xFF);
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Get the well-known header name, that matches the specified range of the raw bytes ignoring the case,
+     * or create a new string, if the name is not well-known.
+     * @param data the raw bytes
+     * @param start the offset of the name
+     * @param end the end offset of the name
+     * @return the header name
+     */
+    public String intern(byte[] data, int start, int end) {
+        int slot = hash(data, start, end) & (TABLE.length - 1);
+        for (String name; (name = TABLE[slot]) != null; slot = (slot + 1) & (TABLE.length - 1)) {
+            if (matches(name, data, start, end))
+                return name;
+        }
+        return new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Determine if the header name equals the specified range of the raw bytes ignoring the case.
+     * @param name header name
+     * @param data the raw bytes
+     * @param start the offset of the range
+     * @param end the end offset of the range
+     * @return true if the name matches
+     */
+    public boolean matches(String name, byte[] data, int start, int end) {
+        int length = name.length();
+        if (end - start != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (toLowerCase(data[start + i] & 0xFF) != toLowerCase(name.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determine if the header names are equal ignoring the ASCII case, so the equality agrees with the
+     * {@link #hash(String)} of the names. The interned names are compared by identity first.
+     * @param a the first header name
+     * @param b the second header name
+     * @return true if the names are equal
+     */
+    public boolean equalsIgnoreCase(String a, String b) {
+        if (a == b)
+            return true;
+        int length = a.length();
+        if (b.length() != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (toLowerCase(a.charAt(i)) != toLowerCase(b.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Convert the specified ASCII character to lowercase.
+     * @param c the character to convert
+     * @return the lowercase character
+     */
+    public int toLowerCase(int c) {
+        return c >= 'A' && c <= 'Z' ? c + 32 : c;
+    }
+}
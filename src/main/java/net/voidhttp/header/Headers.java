@@ -3,6 +3,7 @@ package net.voidhttp.header;
 import java.io.PrintWriter;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Represents an HTTP header manager.
@@ -16,24 +17,45 @@ public interface Headers {
     boolean has(String key);
 
     /**
-     * Get the header with the given key.
+     * Get the header with the given key. If the header has multiple values, the first one is returned.
      * @param key header key
      */
     String get(String key);
 
     /**
-     * Get the map of the holding headers.
+     * Get all the values of the header with the given key, in the order they were registered.
+     * @param key header key
+     * @return header values, or an empty list if the header is missing
+     */
+    List<String> getAll(String key);
+
+    /**
+     * Get the map of the holding headers. If a header has multiple values, only the first one is included.
+     * The map is an unmodifiable snapshot of the headers.
      * @return header list
      */
     Map<String, String> getHeaders();
 
     /**
-     * Register a new header.
+     * Iterate over all the header values, in the order they were registered.
+     * @param action the action to be called with the header names and values
+     */
+    void forEach(BiConsumer<String, String> action);
+
+    /**
+     * Register a new header. The previous values of the header are replaced.
      * @param key header key
      * @param value header value
      */
     void add(String key, Object value);
 
+    /**
+     * Register another value of a header, keeping its previous values.
+     * @param key header key
+     * @param value header value
+     */
+    void append(String key, Object value);
+
     /**
      * Register a new header if the key is already set.
      * @param key header key
@@ -2,23 +2,65 @@ package net.voidhttp.header;
 
 import java.io.PrintWriter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 
 /**
  * Represents an HTTP header manager.
+ * <p>
+ * The headers are stored in the order they were registered, and they are indexed by a small open-addressed table,
+ * that is keyed by the case-insensitive hash of the header names, so the lookups do not compare the names
+ * character by character, unless their hashes are equal. A header may have multiple values, such as `Set-Cookie`,
+ * each of which is written as a separate header line.
  */
 public class HttpHeaders implements Headers {
     /**
-     * The registered HTTP headers.
+     * The initial amount of headers, that the registry can hold without growing.
      */
-    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The names of the registered headers, in the order they were registered.
+     */
+    private String[] names = new String[INITIAL_CAPACITY];
+
+    /**
+     * The values of the registered headers.
+     */
+    private String[] values = new String[INITIAL_CAPACITY];
+
+    /**
+     * The case-insensitive hashes of the header names.
+     */
+    private int[] hashes = new int[INITIAL_CAPACITY];
+
+    /**
+     * The index of the next value of the same header name, or -1 if the value is the last one.
+     */
+    private int[] next = new int[INITIAL_CAPACITY];
+
+    /**
+     * The amount of the registered header values.
+     */
+    private int size;
+
+    /**
+     * The open-addressed table of the first value of each header name. A slot holds the index of the value
+     * incremented by one, so the empty slots are zeros.
+     */
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * The amount of the distinct header names in the table.
+     */
+    private int distinct;
 
     /**
      * Initialize HTTP headers.
      * @param headers header registry
      */
     public HttpHeaders(Map<String, String> headers) {
-        this.headers.putAll(headers);
+        for (Map.Entry<String, String> entry : headers.entrySet())
+            appendValue(entry.getKey(), entry.getValue());
     }
 
     /**
@@ -28,36 +70,125 @@ public class HttpHeaders implements Headers {
      */
     @Override
     public boolean has(String key) {
-        return headers.containsKey(key);
+        return find(key, HeaderNames.hash(key)) >= 0;
     }
 
     /**
-     * Get the header with the given key.
+     * Get the header with the given key. If the header has multiple values, the first one is returned.
      * @param key header key
      */
     @Override
     public String get(String key) {
-        return headers.get(key);
+        int index = find(key, HeaderNames.hash(key));
+        return index >= 0 ? values[index] : null;
     }
 
+    /**
+     * Get all the values of the header with the given key, in the order they were registered.
+     * @param key header key
+     * @return header values, or an empty list if the header is missing
+     */
+    @Override
+    public List<String> getAll(String key) {
+        List<String> result = new ArrayList<>(1);
+        for (int index = find(key, HeaderNames.hash(key)); index >= 0; index = next[index])
+            result.add(values[index]);
+        return result;
+    }
 
     /**
-     * Get the map of the holding headers.
+     * Get the map of the holding headers. If a header has multiple values, only the first one is included,
+     * use {@link #forEach(BiConsumer)} to iterate over all the values.
+     * <p>
+     * The map is a snapshot of the headers, that cannot be modified, use {@link #add(String, Object)}
+     * and {@link #remove(String)} to update the headers.
      * @return header list
      */
     @Override
     public Map<String, String> getHeaders() {
-        return headers;
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < size; i++)
+            headers.putIfAbsent(names[i], values[i]);
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Iterate over all the header values, in the order they were registered.
+     * @param action the action to be called with the header names and values
+     */
+    @Override
+    public void forEach(BiConsumer<String, String> action) {
+        for (int i = 0; i < size; i++)
+            action.accept(names[i], values[i]);
     }
 
     /**
-     * Register a new header.
+     * Register a new header. The previous values of the header are replaced.
      * @param key header key
      * @param value header value
      */
     @Override
     public void add(String key, Object value) {
-        headers.put(key, String.valueOf(value));
+        int index = find(key, HeaderNames.hash(key));
+        // replace the value in place, if the header has a single value
+        if (index >= 0 && next[index] < 0) {
+            values[index] = String.valueOf(value);
+            return;
+        }
+        if (index >= 0)
+            remove(key);
+        append(key, value);
+    }
+
+    /**
+     * Register another value of a header, keeping its previous values.
+     * @param key header key
+     * @param value header value
+     */
+    @Override
+    public void append(String key, Object value) {
+        appendValue(key, value);
+    }
+
+    /**
+     * Register another value of a header, keeping its previous values. This is not overridable,
+     * so it may be called by the constructor.
+     * @param key header key
+     * @param value header value
+     */
+    private void appendValue(String key, Object value) {
+        int hash = HeaderNames.hash(key);
+        int first = find(key, hash);
+
+        // make sure that the new value fits
+        if (size == names.length) {
+            int capacity = size * 2;
+            names = Arrays.copyOf(names, capacity);
+            values = Arrays.copyOf(values, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+
+        int index = size++;
+        names[index] = key;
+        values[index] = String.valueOf(value);
+        hashes[index] = hash;
+        next[index] = -1;
+
+        // link the value after the last value of the same header
+        if (first >= 0) {
+            int last = first;
+            while (next[last] >= 0)
+                last = next[last];
+            next[last] = index;
+            return;
+        }
+
+        // keep the table at most half full, so the probe sequences stay short
+        if (++distinct * 2 > slots.length)
+            rebuild(slots.length * 2);
+        else
+            insert(index);
     }
 
     /**
@@ -67,7 +198,7 @@ public class HttpHeaders implements Headers {
      */
     @Override
     public void addIfPresent(String key, Object value) {
-        if (get(key) != null)
+        if (has(key))
             add(key, value);
     }
 
@@ -78,18 +209,38 @@ public class HttpHeaders implements Headers {
      */
     @Override
     public void addIfAbsent(String key, Object value) {
-        if (get(key) == null)
-            add(key, value);
+        if (!has(key))
+            append(key, value);
     }
 
     /**
-     * Remove a header from the registry.
+     * Remove all the values of a header from the registry.
      * @param key header key
      * @return header was removed
      */
     @Override
     public boolean remove(String key) {
-        return headers.remove(key) != null;
+        int hash = HeaderNames.hash(key);
+        if (find(key, hash) < 0)
+            return false;
+
+        // move the remaining values over the removed ones, keeping their order
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (hashes[i] == hash && HeaderNames.equalsIgnoreCase(names[i], key))
+                continue;
+            names[count] = names[i];
+            values[count] = values[i];
+            hashes[count] = hashes[i];
+            count++;
+        }
+        Arrays.fill(names, count, size, null);
+        Arrays.fill(values, count, size, null);
+        size = count;
+        distinct--;
+
+        rebuild(slots.length);
+        return true;
     }
 
     /**
@@ -98,8 +249,71 @@ public class HttpHeaders implements Headers {
      */
     @Override
     public void write(PrintWriter writer) {
-        for (Map.Entry<String, String> entry : headers.entrySet())
-            writer.print(entry.getKey() + ": " + entry.getValue() + "\r\n");
+        for (int i = 0; i < size; i++)
+            writer.print(names[i] + ": " + values[i] + "\r\n");
+    }
+
+    /**
+     * Find the first value of the header with the given key.
+     * @param key header key
+     * @param hash the case-insensitive hash of the key
+     * @return the index of the first value, or -1 if the header is missing
+     */
+    private int find(String key, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            if (hashes[index] == hash && HeaderNames.equalsIgnoreCase(names[index], key))
+                return index;
+        }
+        return -1;
+    }
+
+    /**
+     * Insert the first value of a header name into the table.
+     * @param index the index of the value
+     */
+    private void insert(int index) {
+        int mask = slots.length - 1;
+        int slot = hashes[index] & mask;
+        while (slots[slot] != 0)
+            slot = (slot + 1) & mask;
+        slots[slot] = index + 1;
+    }
+
+    /**
+     * Rebuild the table and the links between the values of the same header names.
+     * @param capacity the amount of slots of the table
+     */
+    private void rebuild(int capacity) {
+        slots = new int[capacity];
+        // link the values from the last one, so each value is linked before the value that precedes it
+        for (int i = size - 1; i >= 0; i--) {
+            next[i] = -1;
+            int first = find(names[i], hashes[i]);
+            if (first < 0) {
+                insert(i);
+                continue;
+            }
+            // the preceding value of the same header becomes the first one
+            next[i] = first;
+            replace(first, i);
+        }
+    }
+
+    /**
+     * Replace the index of the first value of a header name in the table.
+     * @param from the index of the previous first value
+     * @param to the index of the new first value
+     */
+    private void replace(int from, int to) {
+        int mask = slots.length - 1;
+        for (int slot = hashes[from] & mask; ; slot = (slot + 1) & mask) {
+            if (slots[slot] == from + 1) {
+                slots[slot] = to + 1;
+                return;
+            }
+        }
     }
 
     /**
@@ -107,31 +321,33 @@ public class HttpHeaders implements Headers {
      */
     @Override
     public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        forEach((name, value) -> joiner.add(name + "=" + value));
         return "HttpHeaders{" +
-            "headers=" + headers +
+            "headers=" + joiner +
             '}';
     }
 
     /**
-     * Parse the HTTP headers from raw data.
+     * Parse the HTTP headers from raw data. The repeated headers keep all of their values.
      * @param data raw header data
      * @return parsed headers
      */
     public static Headers parse(List<String> data) {
-        // declare a list for parsed headers
-        Map<String, String> headers = new HashMap<>();
+        Headers headers = empty();
         // loop through the raw headers data
         for (String header : data) {
-            // get the index of the first colon
+            // get the index of the first colon, the lines without a colon are not headers
             int index = header.indexOf(':');
-            // get the key and value of the header
-            String key = header.substring(0, index);
-            String value = header.substring(index + 2);
+            if (index <= 0)
+                continue;
+            // get the key and value of the header, the value may be surrounded by optional whitespaces
+            String key = header.substring(0, index).trim();
+            String value = header.substring(index + 1).trim();
             // register the header
-            headers.put(key, value);
+            headers.append(key, value);
         }
-        // create new headers
-        return new HttpHeaders(headers);
+        return headers;
     }
 
     /**
@@ -139,6 +355,6 @@ public class HttpHeaders implements Headers {
      * @return empty header registry
      */
     public static Headers empty() {
-        return new HttpHeaders(new HashMap<>());
+        return new HttpHeaders(Collections.emptyMap());
     }
 }
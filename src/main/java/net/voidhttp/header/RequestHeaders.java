@@ -0,0 +1,292 @@
+package net.voidhttp.header;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Represents a registry of the HTTP request headers, that is backed by the raw bytes of the request head.
+ * <p>
+ * The header names and values are only decoded when they are requested. The headers are indexed by an
+ * open-addressed table, that is keyed by the name hashes recorded by the parser, so the lookups only compare
+ * the bytes of the names, whose hashes are equal. If the registry is modified, the headers are copied to a regular
+ * {@link HttpHeaders} registry.
+ */
+public class RequestHeaders implements Headers {
+    /**
+     * The amount of integers used to store the offsets of a single header.
+     */
+    private static final int STRIDE = 5;
+
+    /**
+     * The raw bytes of the request head.
+     */
+    private final byte[] data;
+
+    /**
+     * The name start, name end, value start and value end offsets, and the name hash of each header.
+     */
+    private final int[] offsets;
+
+    /**
+     * The open-addressed table of the first header of each name. A slot holds the index of the header
+     * incremented by one, so the empty slots are zeros.
+     */
+    private final int[] slots;
+
+    /**
+     * The index of the next header with the same name, or -1 if the header is the last one.
+     */
+    private final int[] next;
+
+    /**
+     * The cache of the decoded header values.
+     */
+    private final String[] values;
+
+    /**
+     * The modifiable copy of the headers, that is created when the registry is modified.
+     */
+    private Headers copy;
+
+    /**
+     * Initialize the request headers.
+     * @param data the raw bytes of the request head
+     * @param offsets the offsets of the header names and values, and the hashes of the names
+     */
+    public RequestHeaders(byte[] data, int[] offsets) {
+        this.data = data;
+        this.offsets = offsets;
+        int count = offsets.length / STRIDE;
+        values = new String[count];
+        next = new int[count];
+
+        // keep the table at most half full, so the probe sequences stay short
+        slots = new int[Math.max(16, Integer.highestOneBit(Math.max(1, count) * 2) << 1)];
+        int mask = slots.length - 1;
+
+        // link the headers from the last one, so the repeated headers are linked in their original order
+        for (int i = count - 1; i >= 0; i--) {
+            next[i] = -1;
+            int hash = offsets[i * STRIDE + 4];
+            int slot = hash & mask;
+            for (; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int other = slots[slot] - 1;
+                if (offsets[other * STRIDE + 4] == hash && sameName(i, other)) {
+                    next[i] = other;
+                    break;
+                }
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Determine if a header exists with the given key.
+     * @param key header key
+     * @return header exists
+     */
+    @Override
+    public boolean has(String key) {
+        if (copy != null)
+            return copy.has(key);
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Get the header with the given key.
+     * @param key header key
+     */
+    @Override
+    public String get(String key) {
+        if (copy != null)
+            return copy.get(key);
+        int index = indexOf(key);
+        return index >= 0 ? value(index) : null;
+    }
+
+    /**
+     * Get all the values of the header with the given key, in the order they were sent.
+     * @param key header key
+     * @return header values, or an empty list if the header is missing
+     */
+    @Override
+    public List<String> getAll(String key) {
+        if (copy != null)
+            return copy.getAll(key);
+        List<String> result = new ArrayList<>(1);
+        for (int index = indexOf(key); index >= 0; index = next[index])
+            result.add(value(index));
+        return result;
+    }
+
+    /**
+     * Get the map of the holding headers. If a header has multiple values, only the first one is included.
+     * The map is an unmodifiable snapshot of the headers.
+     * @return header list
+     */
+    @Override
+    public Map<String, String> getHeaders() {
+        return copy().getHeaders();
+    }
+
+    /**
+     * Iterate over all the header values, in the order they were sent.
+     * @param action the action to be called with the header names and values
+     */
+    @Override
+    public void forEach(BiConsumer<String, String> action) {
+        if (copy != null) {
+            copy.forEach(action);
+            return;
+        }
+        for (int i = 0; i < values.length; i++)
+            action.accept(name(i), value(i));
+    }
+
+    /**
+     * Register a new header.
+     * @param key header key
+     * @param value header value
+     */
+    @Override
+    public void add(String key, Object value) {
+        copy().add(key, value);
+    }
+
+    /**
+     * Register another value of a header, keeping its previous values.
+     * @param key header key
+     * @param value header value
+     */
+    @Override
+    public void append(String key, Object value) {
+        copy().append(key, value);
+    }
+
+    /**
+     * Register a new header if the key is already set.
+     * @param key header key
+     * @param value header value
+     */
+    @Override
+    public void addIfPresent(String key, Object value) {
+        copy().addIfPresent(key, value);
+    }
+
+    /**
+     * Register a new header if the key is missing.
+     * @param key header key
+     * @param value header value
+     */
+    @Override
+    public void addIfAbsent(String key, Object value) {
+        copy().addIfAbsent(key, value);
+    }
+
+    /**
+     * Remove a header from the registry.
+     * @param key header key
+     * @return header was removed
+     */
+    @Override
+    public boolean remove(String key) {
+        return copy().remove(key);
+    }
+
+    /**
+     * Write the registered headers to a print stream.
+     * @param writer stream writer
+     */
+    @Override
+    public void write(PrintWriter writer) {
+        copy().write(writer);
+    }
+
+    /**
+     * Find the index of the first header with the given key, ignoring the case of the key.
+     * @param key header key
+     * @return the index of the header, or -1 if it is missing
+     */
+    private int indexOf(String key) {
+        int hash = HeaderNames.hash(key);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            int start = offsets[index * STRIDE];
+            if (offsets[index * STRIDE + 4] == hash && HeaderNames.matches(key, data, start, offsets[index * STRIDE + 1]))
+                return index;
+        }
+        return -1;
+    }
+
+    /**
+     * Determine if the headers at the specified indices have the same name, ignoring the case.
+     * @param a the index of the first header
+     * @param b the index of the second header
+     * @return true if the names are equal
+     */
+    private boolean sameName(int a, int b) {
+        int start = offsets[a * STRIDE];
+        int length = offsets[a * STRIDE + 1] - start;
+        int other = offsets[b * STRIDE];
+        if (offsets[b * STRIDE + 1] - other != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (HeaderNames.toLowerCase(data[start + i] & 0xFF) != HeaderNames.toLowerCase(data[other + i] & 0xFF))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the name of the header at the specified index. The well-known names are not allocated.
+     * @param index header index
+     * @return header name
+     */
+    private String name(int index) {
+        return HeaderNames.intern(data, offsets[index * STRIDE], offsets[index * STRIDE + 1]);
+    }
+
+    /**
+     * Get the decoded value of the header at the specified index.
+     * @param index header index
+     * @return header value
+     */
+    private String value(int index) {
+        String value = values[index];
+        if (value == null) {
+            int start = offsets[index * STRIDE + 2];
+            value = new String(data, start, offsets[index * STRIDE + 3] - start, StandardCharsets.ISO_8859_1);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Get the modifiable copy of the headers, and create it, if it does not exist yet.
+     * @return the modifiable header registry
+     */
+    private Headers copy() {
+        if (copy == null) {
+            Headers headers = HttpHeaders.empty();
+            for (int i = 0; i < values.length; i++)
+                headers.append(name(i), value(i));
+            copy = headers;
+        }
+        return copy;
+    }
+
+    /**
+     * Debug the HTTP headers.
+     */
+    @Override
+    public String toString() {
+        return "RequestHeaders{" +
+            "headers=" + getHeaders() +
+            '}';
+    }
+}
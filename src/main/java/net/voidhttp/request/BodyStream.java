@@ -0,0 +1,371 @@
+package net.voidhttp.request;
+
+import dev.inventex.octa.concurrent.future.Future;
+import dev.inventex.octa.data.primitive.Tuple;
+import lombok.Getter;
+import net.voidhttp.BufferPool;
+import net.voidhttp.HttpConnection;
+import net.voidhttp.ServerConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.InterruptedByTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents the content of a request, that is read from the socket channel in chunks as the handler consumes it,
+ * instead of being buffered entirely in the memory.
+ * <p>
+ * A chunk is only read from the socket channel, when the handler asks for it, so a slow consumer applies
+ * backpressure on the client through the flow control of TCP. Each chunk is only valid until the next chunk is
+ * requested, as its buffer is returned to the pool afterwards, so the handler must copy the bytes it wants to retain.
+ * <p>
+ * The next request of the connection is not read until the content has been consumed entirely. If the response
+ * is sent before that, the connection is closed after the response.
+ * <p>
+ * The content may be sent either with a `Content-Length`, or using the chunked transfer encoding, in which case
+ * the chunks are decoded in place, and the total size of the content is not known in advance.
+ */
+public class BodyStream {
+    /**
+     * The client connection that the content is read from.
+     */
+    private final HttpConnection connection;
+
+    /**
+     * The configuration of the http server.
+     */
+    private final ServerConfig config;
+
+    /**
+     * The total size in bytes of the content, that is specified by the `Content-Length` header,
+     * or -1 if the content is chunked.
+     */
+    @Getter
+    private final long length;
+
+    /**
+     * The decoder of the content, if the content is sent using the chunked transfer encoding.
+     */
+    private final ChunkedDecoder decoder;
+
+    /**
+     * The amount of bytes of the content that have been handed over to the consumer.
+     */
+    @Getter
+    private volatile long received;
+
+    /**
+     * The beginning of the content, that has been read along with the request head.
+     */
+    private ByteBuffer initial;
+
+    /**
+     * The pooled buffer of the chunk that is currently being processed by the consumer.
+     */
+    private ByteBuffer current;
+
+    /**
+     * The indication, whether a chunk is currently being read from the socket channel.
+     */
+    private boolean pending;
+
+    /**
+     * The future that is completed, when the content has been read entirely, or failed, if it could not be read.
+     */
+    @Getter
+    private final Future<Void> completion = new Future<>();
+
+    /**
+     * Initialize the body stream.
+     * @param connection the client connection that the content is read from
+     * @param config the configuration of the server
+     * @param length the total size of the content in bytes
+     * @param initial the beginning of the content, that has been read along with the request head
+     */
+    public BodyStream(HttpConnection connection, ServerConfig config, long length, ByteBuffer initial) {
+        this.connection = connection;
+        this.config = config;
+        this.length = length;
+        this.decoder = null;
+        this.initial = initial.hasRemaining() ? initial : null;
+
+        if (length == 0)
+            completion.complete(null);
+    }
+
+    /**
+     * Initialize the body stream of a chunked content.
+     * @param connection the client connection that the content is read from
+     * @param config the configuration of the server
+     * @param decoder the decoder of the chunked content
+     * @param initial the beginning of the encoded content, that has been read along with the request head
+     */
+    public BodyStream(HttpConnection connection, ServerConfig config, ChunkedDecoder decoder, ByteBuffer initial) {
+        this.connection = connection;
+        this.config = config;
+        this.length = -1;
+        this.decoder = decoder;
+        this.initial = initial.hasRemaining() ? initial : null;
+    }
+
+    /**
+     * Read the next chunk of the content. The previously returned chunk must not be used after this call.
+     * @return future that will be completed with the next chunk, or with null, if the content has ended
+     */
+    public Future<ByteBuffer> next() {
+        BufferPool bufferPool = connection.getBufferPool();
+        ByteBuffer buffer;
+        synchronized (this) {
+            if (pending)
+                return Future.failed(new IllegalStateException("The previous chunk is still being read"));
+
+            // return the buffer of the previous chunk to the pool
+            bufferPool.release(current);
+            current = null;
+
+            if (isFinished())
+                return Future.completed(null);
+
+            // hand over the bytes that were read along with the head first
+            if (initial != null) {
+                buffer = initial;
+                initial = null;
+                try {
+                    if (accept(buffer))
+                        return Future.completed(buffer);
+                } catch (Exception e) {
+                    completion.fail(e);
+                    return Future.failed(e);
+                }
+                // the initial bytes only contained the end of the chunked content
+                if (isFinished())
+                    return Future.completed(null);
+            }
+
+            pending = true;
+        }
+
+        // only read the remaining bytes of the sized content, so the next pipelined request is not consumed
+        int readSize = decoder != null
+            ? config.getContentReadSize()
+            : (int) Math.min(config.getContentReadSize(), length - received);
+        buffer = bufferPool.acquire(readSize);
+
+        Future<ByteBuffer> future = new Future<>();
+        readChunk(buffer, readSize, future);
+        return future;
+    }
+
+    /**
+     * Read the next chunk from the socket channel into the buffer. If the chunk only contains the framing of
+     * the chunked content, but no data, read again, until there is data to be handed over.
+     * @param buffer the pooled buffer to read the chunk into
+     * @param readSize the maximum amount of bytes to read
+     * @param future the future to be completed with the chunk
+     */
+    private void readChunk(ByteBuffer buffer, int readSize, Future<ByteBuffer> future) {
+        BufferPool bufferPool = connection.getBufferPool();
+        Tuple<Long, TimeUnit> timeout = config.getReadTimeout();
+
+        buffer.position(0).limit(readSize);
+        connection.getChannel().read(buffer, timeout.getFirst(), timeout.getSecond(), null,
+            new CompletionHandler<Integer, Void>() {
+                @Override
+                public void completed(Integer bytesRead, Void attachment) {
+                    // the client must not close the connection before the whole content was sent
+                    if (bytesRead < 0) {
+                        failed(new IOException("End of stream reached"), attachment);
+                        return;
+                    }
+
+                    boolean hasData;
+                    try {
+                        hasData = accept(buffer.flip());
+                    } catch (Exception e) {
+                        failed(e, attachment);
+                        return;
+                    }
+
+                    // the chunk only contained framing, but the content has not ended yet
+                    if (!hasData && !isFinished()) {
+                        readChunk(buffer, readSize, future);
+                        return;
+                    }
+
+                    synchronized (BodyStream.this) {
+                        pending = false;
+                        if (hasData)
+                            current = buffer;
+                    }
+                    // the content has ended without any more data
+                    if (!hasData) {
+                        bufferPool.release(buffer);
+                        future.complete(null);
+                        return;
+                    }
+                    future.complete(buffer);
+                }
+
+                @Override
+                public void failed(Throwable error, Void attachment) {
+                    synchronized (BodyStream.this) {
+                        pending = false;
+                    }
+                    // the channel may still write into the buffer of a timed out read, so it must not be reused
+                    if (!(error instanceof InterruptedByTimeoutException))
+                        bufferPool.release(buffer);
+                    future.fail(error);
+                    completion.fail(error);
+                }
+            });
+    }
+
+    /**
+     * Prepare the bytes read from the socket channel to be handed over to the consumer. The chunked content is
+     * decoded in place, so the buffer only contains the data afterwards. Complete the stream, if the content has ended.
+     * @param buffer the buffer of the read bytes
+     * @return true if the buffer contains data to be handed over
+     * @throws IllegalStateException if the decoded chunked content exceeds the maximum streamed content length
+     */
+    private boolean accept(ByteBuffer buffer) {
+        if (decoder == null) {
+            received += buffer.remaining();
+            if (received >= length)
+                completion.complete(null);
+            return buffer.hasRemaining();
+        }
+
+        int start = buffer.position();
+        int decoded = decoder.decode(buffer);
+        received += decoded;
+
+        // the size of the chunked content is not known in advance, so the limit is checked as it is decoded
+        if (received > config.getMaxStreamedContentLength())
+            throw new IllegalStateException(
+                "Content length exceeded maximum size of " + config.getMaxStreamedContentLength() + " bytes"
+            );
+
+        if (decoder.isFinished()) {
+            // the bytes after the content belong to the next pipelined request
+            if (buffer.hasRemaining()) {
+                byte[] leftover = new byte[buffer.remaining()];
+                buffer.get(leftover);
+                connection.setLeftover(leftover);
+            }
+            completion.complete(null);
+        }
+
+        buffer.limit(start + decoded).position(start);
+        return decoded > 0;
+    }
+
+    /**
+     * Consume the remaining chunks of the content one after another. The next chunk is only read after the
+     * future returned by the handler of the previous chunk has been completed.
+     * @param handler the handler of the chunks
+     * @return future that will be completed when the content has been consumed
+     */
+    public Future<Void> consume(ChunkHandler handler) {
+        Future<Void> future = new Future<>();
+        consumeNext(handler, future);
+        return future;
+    }
+
+    /**
+     * Read the next chunk of the content and pass it to the handler, then continue with the next chunk.
+     * @param handler the handler of the chunks
+     * @param future the future to be completed when the content has been consumed
+     */
+    private void consumeNext(ChunkHandler handler, Future<Void> future) {
+        next().tryThen(chunk -> {
+            if (chunk == null) {
+                future.complete(null);
+                return;
+            }
+
+            handler.handle(chunk)
+                .then(value -> consumeNext(handler, future))
+                .except(future::fail);
+        }).except(future::fail);
+    }
+
+    /**
+     * Write the remaining content to the output stream. The stream is not closed afterwards.
+     * @param stream the output stream to write the content to
+     * @return future that will be completed when the content has been written
+     */
+    public Future<Void> pipe(OutputStream stream) {
+        return consume(chunk -> {
+            if (chunk.hasArray())
+                stream.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            else {
+                byte[] bytes = new byte[chunk.remaining()];
+                chunk.get(bytes);
+                stream.write(bytes);
+            }
+            return Future.completed(null);
+        });
+    }
+
+    /**
+     * Write the remaining content to the asynchronous channel, for example to another socket.
+     * The next chunk is only read from the client after the previous one has been written.
+     * @param channel the channel to write the content to
+     * @return future that will be completed when the content has been written
+     */
+    public Future<Void> pipe(AsynchronousByteChannel channel) {
+        return consume(chunk -> {
+            Future<Void> future = new Future<>();
+            channel.write(chunk, null, new CompletionHandler<Integer, Void>() {
+                @Override
+                public void completed(Integer bytesWritten, Void attachment) {
+                    // the channel may accept less bytes than requested, continue writing the same chunk
+                    if (chunk.hasRemaining())
+                        channel.write(chunk, null, this);
+                    else
+                        future.complete(null);
+                }
+
+                @Override
+                public void failed(Throwable error, Void attachment) {
+                    future.fail(error);
+                }
+            });
+            return future;
+        });
+    }
+
+    /**
+     * Read and drop the remaining content, so the next request of the connection can be read.
+     * @return future that will be completed when the content has been discarded
+     */
+    public Future<Void> discard() {
+        return consume(chunk -> Future.completed(null));
+    }
+
+    /**
+     * Indicate, whether the content has been read entirely.
+     * @return true if there are no more chunks to be read
+     */
+    public boolean isFinished() {
+        return decoder != null ? decoder.isFinished() : received >= length;
+    }
+
+    /**
+     * Represents a handler of the chunks of the streamed content.
+     */
+    @FunctionalInterface
+    public interface ChunkHandler {
+        /**
+         * Handle the next chunk of the content.
+         * @param chunk the chunk, that is only valid until the returned future is completed
+         * @return future that will be completed, when the next chunk can be read
+         * @throws Exception error whilst handling the chunk
+         */
+        Future<Void> handle(ByteBuffer chunk) throws Exception;
+    }
+}
@@ -0,0 +1,286 @@
+package net.voidhttp.request;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a state machine decoder of the `Transfer-Encoding: chunked` request content.
+ * <p>
+ * The bytes read from the socket channel are decoded in place, the chunk size lines, the chunk extensions and the
+ * trailers are dropped, and the chunk data is moved to the beginning of the decoded range. As the encoded bytes
+ * are never shorter than the decoded ones, the data does not have to be copied into another buffer.
+ */
+public class ChunkedDecoder {
+    /**
+     * The maximum size in bytes of a chunk size line along with its extensions, and the maximum size of the
+     * trailers in total.
+     */
+    private final int maxOverhead;
+
+    /**
+     * The current state of the decoder.
+     */
+    private State state = State.SIZE;
+
+    /**
+     * The size of the current chunk, or the amount of bytes that are remaining from the current chunk.
+     */
+    private long remaining;
+
+    /**
+     * The amount of hex digits of the current chunk size.
+     */
+    private int digits;
+
+    /**
+     * The amount of bytes of the current chunk size line or the trailers, that are not part of the content.
+     */
+    private int overhead;
+
+    /**
+     * The amount of content bytes that have been decoded.
+     */
+    @Getter
+    private long decoded;
+
+    /**
+     * Initialize the chunked decoder.
+     * @param maxOverhead the maximum size of a chunk size line, and the maximum size of the trailers
+     */
+    public ChunkedDecoder(int maxOverhead) {
+        this.maxOverhead = maxOverhead;
+    }
+
+    /**
+     * Decode the encoded bytes of the buffer in place, from its position to its limit.
+     * <p>
+     * The decoded content is moved to the original position of the buffer, and the position is advanced after
+     * the last consumed encoded byte. If the content has ended, the bytes after the position belong
+     * to the next request.
+     * @param buffer the buffer of the encoded bytes
+     * @return the amount of the decoded content bytes
+     * @throws IllegalStateException if the content is not properly chunked
+     */
+    public int decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        int write = start;
+        int read = start;
+        int limit = buffer.limit();
+
+        while (read < limit && state != State.COMPLETE) {
+            // copy the data of the current chunk at once
+            if (state == State.DATA) {
+                int length = (int) Math.min(remaining, limit - read);
+                if (write != read)
+                    copy(buffer, read, write, length);
+                read += length;
+                write += length;
+                remaining -= length;
+                decoded += length;
+                if (remaining == 0)
+                    state = State.DATA_END;
+                continue;
+            }
+
+            byte b = buffer.get(read++);
+            if (++overhead > maxOverhead)
+                throw new IllegalStateException("Chunk size line exceeded maximum size of " + maxOverhead + " bytes");
+
+            switch (state) {
+                // the size line must be `1*HEXDIG [ BWS ";" extensions ] CRLF`
+                case SIZE -> {
+                    int digit = Character.digit(b, 16);
+                    if (digit >= 0) {
+                        // make sure the chunk size does not overflow
+                        if (++digits > 15)
+                            throw new IllegalStateException("Chunk size is too large");
+                        remaining = remaining << 4 | digit;
+                    } else if (digits == 0)
+                        throw new IllegalStateException("Missing chunk size");
+                    else if (b == ';')
+                        state = State.EXTENSION;
+                    else if (b == ' ' || b == '\t')
+                        state = State.SIZE_SPACE;
+                    else if (b == '\r')
+                        state = State.SIZE_END;
+                    else
+                        throw new IllegalStateException("Invalid chunk size character: " + (char) b);
+                }
+                // the whitespaces after the chunk size must be followed by a chunk extension
+                case SIZE_SPACE -> {
+                    if (b == ';')
+                        state = State.EXTENSION;
+                    else if (b != ' ' && b != '\t')
+                        throw new IllegalStateException("Invalid character after chunk size: " + (char) b);
+                }
+                // the chunk extensions are not supported, ignore them
+                case EXTENSION -> {
+                    if (b == '\r')
+                        state = State.SIZE_END;
+                    else if (isControl(b))
+                        throw new IllegalStateException("Invalid chunk extension character: " + (b & 0xFF));
+                }
+                case SIZE_END -> {
+                    requireLineFeed(b, "chunk size line");
+                    endSizeLine();
+                }
+                // the chunk data must be terminated by exactly one line break
+                case DATA_END -> {
+                    if (b != '\r')
+                        throw new IllegalStateException("Missing line break after chunk data");
+                    state = State.DATA_LINE_END;
+                }
+                case DATA_LINE_END -> {
+                    requireLineFeed(b, "chunk data");
+                    overhead = 0;
+                    state = State.SIZE;
+                }
+                // an empty line terminates the trailers, the trailers are ignored
+                case TRAILER_START -> {
+                    if (b == '\r')
+                        state = State.TRAILERS_END;
+                    // a trailer line must not begin with a whitespace, which would fold it into the previous one
+                    else if (b == ' ' || b == '\t' || isControl(b))
+                        throw new IllegalStateException("Invalid trailer line character: " + (b & 0xFF));
+                    else
+                        state = State.TRAILER;
+                }
+                case TRAILER -> {
+                    if (b == '\r')
+                        state = State.TRAILER_END;
+                    else if (isControl(b))
+                        throw new IllegalStateException("Invalid trailer line character: " + (b & 0xFF));
+                }
+                case TRAILER_END -> {
+                    requireLineFeed(b, "trailer line");
+                    state = State.TRAILER_START;
+                }
+                case TRAILERS_END -> {
+                    requireLineFeed(b, "trailers");
+                    state = State.COMPLETE;
+                }
+            }
+        }
+
+        buffer.position(read);
+        return write - start;
+    }
+
+    /**
+     * Handle the end of the chunk size line, and begin reading the chunk data, or the trailers after the last chunk.
+     */
+    private void endSizeLine() {
+        digits = 0;
+        overhead = 0;
+        state = remaining == 0 ? State.TRAILER_START : State.DATA;
+    }
+
+    /**
+     * Make sure that the carriage return of a line terminator is immediately followed by a line feed.
+     * @param b the byte after the carriage return
+     * @param line the name of the terminated line
+     * @throws IllegalStateException if the byte is not a line feed
+     */
+    private static void requireLineFeed(byte b, String line) {
+        if (b != '\n')
+            throw new IllegalStateException("Malformed line break after " + line);
+    }
+
+    /**
+     * Indicate, whether the byte is a control character, that is not allowed in the chunk extensions
+     * and the trailers. The horizontal tab is allowed as a whitespace.
+     * @param b the byte to check
+     * @return true if the byte is a control character
+     */
+    private static boolean isControl(byte b) {
+        return (b >= 0 && b < ' ' && b != '\t') || b == 0x7F;
+    }
+
+    /**
+     * Move the bytes of the buffer to a lower offset.
+     * @param buffer the buffer to move the bytes in
+     * @param from the offset to move the bytes from
+     * @param to the offset to move the bytes to
+     * @param length the amount of bytes to move
+     */
+    private void copy(ByteBuffer buffer, int from, int to, int length) {
+        // the destination is always below the source, so the bytes can be bulk copied forward
+        buffer.put(to, buffer.duplicate(), from, length);
+    }
+
+    /**
+     * Indicate, whether the last chunk and the trailers have been decoded.
+     * @return true if the content has ended
+     */
+    public boolean isFinished() {
+        return state == State.COMPLETE;
+    }
+
+    /**
+     * Represents the current state of the chunked decoder.
+     */
+    private enum State {
+        /**
+         * `SIZE` indicates, that the decoder is reading the hex size of the next chunk.
+         */
+        SIZE,
+
+        /**
+         * `SIZE_SPACE` indicates, that the decoder is skipping the whitespaces between the chunk size
+         * and the chunk extensions.
+         */
+        SIZE_SPACE,
+
+        /**
+         * `EXTENSION` indicates, that the decoder is skipping the extensions of the chunk size line.
+         */
+        EXTENSION,
+
+        /**
+         * `SIZE_END` indicates, that the decoder is waiting for the line feed of the chunk size line.
+         */
+        SIZE_END,
+
+        /**
+         * `DATA` indicates, that the decoder is reading the data of the current chunk.
+         */
+        DATA,
+
+        /**
+         * `DATA_END` indicates, that the decoder is waiting for the carriage return after the chunk data.
+         */
+        DATA_END,
+
+        /**
+         * `DATA_LINE_END` indicates, that the decoder is waiting for the line feed after the chunk data.
+         */
+        DATA_LINE_END,
+
+        /**
+         * `TRAILER_START` indicates, that the decoder is at the beginning of a trailer line after the last chunk.
+         */
+        TRAILER_START,
+
+        /**
+         * `TRAILER` indicates, that the decoder is skipping a trailer line.
+         */
+        TRAILER,
+
+        /**
+         * `TRAILER_END` indicates, that the decoder is waiting for the line feed of a trailer line.
+         */
+        TRAILER_END,
+
+        /**
+         * `TRAILERS_END` indicates, that the decoder is waiting for the line feed of the empty line,
+         * that terminates the trailers.
+         */
+        TRAILERS_END,
+
+        /**
+         * `COMPLETE` indicates, that the content has ended.
+         */
+        COMPLETE
+    }
+}
@@ -0,0 +1,445 @@
+package net.voidhttp.request;
+
+import lombok.Getter;
+import net.voidhttp.header.HeaderNames;
+import net.voidhttp.header.Headers;
+import net.voidhttp.header.RequestHeaders;
+import net.voidhttp.request.parameter.Parameters;
+import net.voidhttp.request.parameter.RequestParameters;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Represents a state machine parser of the request line and the headers of an HTTP request.
+ * <p>
+ * The bytes read from the socket channel are appended to the head array of the parser, and the parser scans them
+ * in place, only recording the offsets of the request line tokens and the header names and values.
+ * Strings are only created when they are requested.
+ */
+public class HeaderParser {
+    /**
+     * The amount of integers used to store the offsets of a single header.
+     */
+    private static final int HEADER_STRIDE = 5;
+
+    /**
+     * The protocol version of the HTTP/1.1 requests.
+     */
+    private static final String HTTP_1_1 = "HTTP/1.1";
+
+    /**
+     * The protocol version of the HTTP/1.0 requests.
+     */
+    private static final String HTTP_1_0 = "HTTP/1.0";
+
+    /**
+     * The common prefix of the supported protocol versions, that is followed by the minor version digit.
+     */
+    private static final byte[] HTTP_VERSION_PREFIX = { 'H', 'T', 'T', 'P', '/', '1', '.' };
+
+    /**
+     * The table of the bytes, that are allowed in a header name.
+     */
+    private static final boolean[] TOKEN_CHARS = new boolean[128];
+
+    static {
+        for (int c = '0'; c <= '9'; c++)
+            TOKEN_CHARS[c] = true;
+        for (int c = 'a'; c <= 'z'; c++)
+            TOKEN_CHARS[c] = true;
+        for (int c = 'A'; c <= 'Z'; c++)
+            TOKEN_CHARS[c] = true;
+        for (char c : "!#$%&'*+-.^_`|~".toCharArray())
+            TOKEN_CHARS[c] = true;
+    }
+
+    /**
+     * The maximum size in bytes of the request line and the headers.
+     */
+    private final int maxSize;
+
+    /**
+     * The raw bytes of the request head that have been read so far.
+     */
+    private byte[] data = new byte[0];
+
+    /**
+     * The amount of bytes that have been read into the head array.
+     */
+    private int limit;
+
+    /**
+     * The current state of the parser.
+     */
+    private State state = State.REQUEST_LINE;
+
+    /**
+     * The offset of the next byte to be scanned.
+     */
+    private int position;
+
+    /**
+     * The offset of the beginning of the currently scanned line.
+     */
+    private int lineStart;
+
+    /**
+     * The offsets of the request target.
+     */
+    private int targetStart, targetEnd;
+
+    /**
+     * The method of the request line.
+     */
+    private Method method;
+
+    /**
+     * The protocol version of the request line.
+     */
+    private String version;
+
+    /**
+     * The offset of the question mark, that separates the route from the url parameters of the request target,
+     * or the end of the target, if the target does not have parameters.
+     */
+    private int queryStart;
+
+    /**
+     * The name start, name end, value start and value end offsets, and the name hash of each header.
+     */
+    private int[] headerOffsets = new int[16 * HEADER_STRIDE];
+
+    /**
+     * The amount of headers that have been parsed.
+     */
+    @Getter
+    private int headerCount;
+
+    /**
+     * The offset of the first byte after the empty line that terminates the headers.
+     */
+    @Getter
+    private int headEnd = -1;
+
+    /**
+     * Initialize the header parser.
+     * @param maxSize the maximum size of the request line and the headers
+     */
+    public HeaderParser(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Append the bytes of the specified buffer to the head array.
+     * @param buffer the buffer that was read from the socket channel
+     */
+    public void feed(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        ensureCapacity(limit + length);
+        buffer.get(data, limit, length);
+        limit += length;
+    }
+
+    /**
+     * Append the specified bytes to the head array.
+     * @param bytes the bytes to append
+     */
+    public void feed(byte[] bytes) {
+        ensureCapacity(limit + bytes.length);
+        System.arraycopy(bytes, 0, data, limit, bytes.length);
+        limit += bytes.length;
+    }
+
+    /**
+     * Grow the head array, so it can hold the specified amount of bytes, retaining the bytes that have been read.
+     * @param capacity the required capacity of the array
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > data.length)
+            data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+    }
+
+    /**
+     * Scan the bytes that have been read since the last call.
+     * @return true if the request head has been fully parsed
+     */
+    public boolean parse() {
+        while (state != State.COMPLETE && position < limit) {
+            // find the end of the current line
+            if (data[position++] != '\n')
+                continue;
+
+            // ignore the carriage return of the line terminator
+            int lineEnd = position - 1;
+            if (lineEnd > lineStart && data[lineEnd - 1] == '\r')
+                lineEnd--;
+
+            switch (state) {
+                case REQUEST_LINE -> {
+                    // ignore the empty lines preceding the request line
+                    if (lineEnd > lineStart) {
+                        parseRequestLine(data, lineStart, lineEnd);
+                        state = State.HEADER_LINE;
+                    }
+                }
+                case HEADER_LINE -> {
+                    // the headers and the request body is separated using an empty line
+                    if (lineEnd == lineStart) {
+                        headEnd = position;
+                        state = State.COMPLETE;
+                    } else
+                        parseHeaderLine(data, lineStart, lineEnd);
+                }
+            }
+
+            lineStart = position;
+        }
+
+        // check if the header size has not exceeded the maximum size
+        int size = state == State.COMPLETE ? headEnd : position;
+        if (size > maxSize)
+            throw new IllegalStateException(
+                "Header size " + size + " exceeded maximum size of " + maxSize + " bytes"
+            );
+
+        return state == State.COMPLETE;
+    }
+
+    /**
+     * Parse the request line in a single pass. Recognize the method directly from the bytes, record the offsets
+     * of the route and the url parameters of the target, and validate the protocol version.
+     * @param data the raw bytes of the head
+     * @param start the offset of the beginning of the line
+     * @param end the offset of the end of the line
+     */
+    private void parseRequestLine(byte[] data, int start, int end) {
+        // the tokens of the request line are separated using spaces
+        int methodEnd = indexOf(data, (byte) ' ', start, end);
+        method = Method.of(data, start, methodEnd);
+
+        // scan the target once, the route and the url parameters are separated using the first question mark
+        targetStart = skipSpaces(data, methodEnd, end);
+        queryStart = -1;
+        int position = targetStart;
+        for (; position < end; position++) {
+            byte b = data[position];
+            if (b == ' ')
+                break;
+            if (b == '?' && queryStart < 0)
+                queryStart = position;
+        }
+        targetEnd = position;
+        if (queryStart < 0)
+            queryStart = targetEnd;
+
+        if (methodEnd == start || targetEnd == targetStart)
+            throw new IllegalStateException("Malformed request line: " + string(data, start, end));
+
+        // the version may be omitted by the HTTP/0.9 clients, which are treated as HTTP/1.0 clients
+        int versionStart = skipSpaces(data, targetEnd, end);
+        version = parseVersion(data, versionStart, end);
+        if (version == null)
+            throw new IllegalStateException("Unsupported protocol version: " + string(data, versionStart, end));
+    }
+
+    /**
+     * Parse the protocol version of the request line, without creating a string.
+     * @param data the raw bytes of the head
+     * @param start the offset of the version
+     * @param end the end offset of the version
+     * @return the protocol version, or null if the version is not supported
+     */
+    private static String parseVersion(byte[] data, int start, int end) {
+        if (start == end)
+            return HTTP_1_0;
+        if (end - start != HTTP_VERSION_PREFIX.length + 1)
+            return null;
+        for (int i = 0; i < HTTP_VERSION_PREFIX.length; i++) {
+            if (data[start + i] != HTTP_VERSION_PREFIX[i])
+                return null;
+        }
+        return switch (data[end - 1]) {
+            case '1' -> HTTP_1_1;
+            case '0' -> HTTP_1_0;
+            default -> null;
+        };
+    }
+
+    /**
+     * Record the offsets of the name and the value of a header line.
+     * @param data the raw bytes of the head
+     * @param start the offset of the beginning of the line
+     * @param end the offset of the end of the line
+     */
+    private void parseHeaderLine(byte[] data, int start, int end) {
+        // the header name and value are separated using a colon
+        int colon = indexOf(data, (byte) ':', start, end);
+        if (colon == end || colon == start)
+            throw new IllegalStateException("Malformed header line: " + string(data, start, end));
+
+        // the name must be a token, a proxy could otherwise normalize it to a different header,
+        // this also rejects the whitespaces before the colon, and the folded lines beginning with a whitespace
+        for (int i = start; i < colon; i++) {
+            byte b = data[i];
+            if (b < 0 || !TOKEN_CHARS[b])
+                throw new IllegalStateException("Invalid header name: " + string(data, start, colon));
+        }
+
+        // trim the optional whitespaces surrounding the value
+        int valueStart = colon + 1;
+        while (valueStart < end && (data[valueStart] == ' ' || data[valueStart] == '\t'))
+            valueStart++;
+        int valueEnd = end;
+        while (valueEnd > valueStart && (data[valueEnd - 1] == ' ' || data[valueEnd - 1] == '\t'))
+            valueEnd--;
+
+        // make sure that the offsets of the next header fit
+        int index = headerCount * HEADER_STRIDE;
+        if (index == headerOffsets.length)
+            headerOffsets = Arrays.copyOf(headerOffsets, headerOffsets.length * 2);
+
+        headerOffsets[index] = start;
+        headerOffsets[index + 1] = colon;
+        headerOffsets[index + 2] = valueStart;
+        headerOffsets[index + 3] = valueEnd;
+        headerOffsets[index + 4] = HeaderNames.hash(data, start, colon);
+        headerCount++;
+    }
+
+    /**
+     * Find the first occurrence of the specified byte in the range.
+     * @param data the bytes to search in
+     * @param value the byte to search for
+     * @param start the offset to search from
+     * @param end the offset to search until
+     * @return the offset of the byte, or the end offset if it was not found
+     */
+    private static int indexOf(byte[] data, byte value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == value)
+                return i;
+        }
+        return end;
+    }
+
+    /**
+     * Skip the spaces from the specified offset.
+     * @param data the bytes to scan
+     * @param start the offset to skip from
+     * @param end the offset to scan until
+     * @return the offset of the first non-space byte
+     */
+    private static int skipSpaces(byte[] data, int start, int end) {
+        while (start < end && data[start] == ' ')
+            start++;
+        return start;
+    }
+
+    /**
+     * Create a string from the specified range of bytes.
+     * @param data the raw bytes
+     * @param start the offset of the string
+     * @param end the end offset of the string
+     * @return the string of the range
+     */
+    private static String string(byte[] data, int start, int end) {
+        return new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Indicate, whether the client has started sending the request line.
+     * Empty lines preceding the request line are not considered.
+     * @return true if the request has been started
+     */
+    public boolean isStarted() {
+        return state != State.REQUEST_LINE || limit > lineStart;
+    }
+
+    /**
+     * Get the method of the request line.
+     * @return the request method, or {@link Method#UNKNOWN} if the method is not recognized
+     */
+    public Method method() {
+        return method;
+    }
+
+    /**
+     * Get the request target of the request line, that includes the route and the url parameters.
+     * @return the request target
+     */
+    public String target() {
+        return string(data, targetStart, targetEnd);
+    }
+
+    /**
+     * Get the route of the request target, that precedes the url parameters.
+     * @return the requested route
+     */
+    public String route() {
+        return string(data, targetStart, queryStart);
+    }
+
+    /**
+     * Create a registry of the url parameters of the request target, that decodes the parameters on demand.
+     * @return the registry of the url parameters
+     */
+    public Parameters parameters() {
+        return queryStart < targetEnd
+            ? RequestParameters.parse(data, queryStart + 1, targetEnd)
+            : RequestParameters.empty();
+    }
+
+    /**
+     * Get the protocol version of the request line.
+     * @return the request protocol version, or HTTP/1.0 if it was not specified
+     */
+    public String version() {
+        return version;
+    }
+
+    /**
+     * Create a registry of the parsed headers, that creates the header strings on demand.
+     * @return the registry of the request headers
+     */
+    public Headers headers() {
+        return new RequestHeaders(data, Arrays.copyOf(headerOffsets, headerCount * HEADER_STRIDE));
+    }
+
+    /**
+     * Get the raw bytes of the request head.
+     * @return the head buffer array
+     */
+    public byte[] array() {
+        return data;
+    }
+
+    /**
+     * Get the amount of bytes that have been read into the head array.
+     * @return the read byte count
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Represents the state of the header parser.
+     */
+    private enum State {
+        /**
+         * `REQUEST_LINE` indicates, that the parser is waiting for the request line.
+         */
+        REQUEST_LINE,
+
+        /**
+         * `HEADER_LINE` indicates, that the parser is reading the header lines.
+         */
+        HEADER_LINE,
+
+        /**
+         * `COMPLETE` indicates, that the empty line after the headers has been reached.
+         */
+        COMPLETE
+    }
+}
@@ -8,19 +8,18 @@ import dev.inventex.octa.data.primitive.Tuple;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
+import net.voidhttp.BufferPool;
+import net.voidhttp.HttpConnection;
 import net.voidhttp.ServerConfig;
+import net.voidhttp.header.HeaderNames;
 import net.voidhttp.header.Headers;
-import net.voidhttp.header.HttpHeaders;
 import net.voidhttp.request.cookie.Cookies;
 import net.voidhttp.request.cookie.RequestCookies;
 import net.voidhttp.request.data.Data;
 import net.voidhttp.request.data.RequestData;
-import net.voidhttp.request.form.FormEntry;
 import net.voidhttp.request.form.MultipartForm;
-import net.voidhttp.request.form.RequestFormEntry;
-import net.voidhttp.request.form.RequestMultipartForm;
+import net.voidhttp.request.form.MultipartParser;
 import net.voidhttp.request.parameter.Parameters;
-import net.voidhttp.request.parameter.RequestParameters;
 import net.voidhttp.request.query.Query;
 import net.voidhttp.request.query.RequestQuery;
 import net.voidhttp.request.session.Session;
@@ -34,12 +33,14 @@ import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.InterruptedByTimeoutException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-import java.util.StringTokenizer;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 
 /**
  * Represents a client http request.
@@ -51,6 +52,12 @@ public class HttpRequest implements Request {
     @Getter
     private final AsynchronousSocketChannel channel;
 
+    /**
+     * The client connection that the request was sent over.
+     */
+    @Getter
+    private final HttpConnection connection;
+
     /**
      * The requesting client's address.
      */
@@ -76,6 +83,12 @@ public class HttpRequest implements Request {
      */
     private String route;
 
+    /**
+     * The HTTP protocol version of the request.
+     */
+    @Getter
+    private String version;
+
     /**
      * The request url parameters.
      */
@@ -88,7 +101,7 @@ public class HttpRequest implements Request {
 
 
     /**
-     * The registry of the request cookies.
+     * The registry of the request cookies, that is created when it is first requested.
      */
     private Cookies cookies;
 
@@ -98,25 +111,36 @@ public class HttpRequest implements Request {
     private Data data;
 
     /**
-     * The binary body of the request.
+     * The binary body of the request. This is the array that the content was read into, it is not copied.
      */
     private byte[] binary;
 
     /**
-     * The body of the request.
+     * The body of the request, that is decoded from the binary body, when it is first requested.
      */
     private String body;
 
     /**
-     * The json body of the request.
+     * The json body of the request, that is parsed from the body, when it is first requested.
      */
     private JsonObject json;
 
+    /**
+     * The indication, whether the json body has already been parsed. The parsed json may be null,
+     * if the content is not a json object, so it must not be parsed again.
+     */
+    private boolean jsonParsed;
+
     /**
      * Get the parsed multipart/form-data body of the request.
      */
     private MultipartForm multipart;
 
+    /**
+     * The streamed content of the request, if the requested route streams its content.
+     */
+    private BodyStream stream;
+
     /**
      * The current session of the request.
      */
@@ -128,50 +152,79 @@ public class HttpRequest implements Request {
      */
     private boolean passed;
 
+    /**
+     * The predicate that determines, whether the content of the requested method and url should be streamed.
+     */
+    private final BiPredicate<Method, String> streaming;
+
     /**
      * The future that will be completed when the request has been parsed.
      */
     private final Future<Void> completionHandler = new Future<>();
 
     /**
-     * The list of raw header that have not been parsed yet.
+     * The parser of the request line and the headers, that the request head is read into.
      */
-    private final List<String> headerLines = new ArrayList<>();
+    private HeaderParser headerParser;
 
     /**
-     * The last read header value, that is used to continue parsing a header if it is stuck between two chunks.
+     * The array that the content of the request is read into.
      */
-    private String lastHeaderLinePart;
+    private byte[] content;
 
     /**
-     * The indication, whether the last header line was incomplete.
+     * The amount of bytes of the content that have been read.
      */
-    private boolean incompleteHeader;
+    private int contentSize;
 
     /**
-     * The total size in byes of the headers.
+     * The decoder of the content, if the content is sent using the chunked transfer encoding.
      */
-    private int totalHeaderSize;
+    private ChunkedDecoder chunkedDecoder;
 
     /**
-     * The buffer that will be used to store the content of the request.
+     * The parser of the multipart/form-data content, that owns the temporary files of the large form entries.
      */
-    private final ByteArrayOutputStream contentBuffer = new ByteArrayOutputStream();
+    private MultipartParser multipartParser;
+
+    /**
+     * The expected size in bytes of the multipart content, or -1 if the content is chunked.
+     */
+    private long multipartLength;
+
+    /**
+     * The amount of bytes of the multipart content that have been fed to the parser.
+     */
+    private long multipartSize;
 
     /**
      * The expected size in bytes of the request content. This is specified by the `Content-Length` header.
      */
     private int contentLength;
 
+    /**
+     * The size in bytes of the content, that is declared by the `Content-Length` header, or -1 if it is missing.
+     */
+    private long declaredLength = -1;
+
+    /**
+     * The indication, whether no data has been received for the request yet.
+     */
+    @Getter
+    private boolean idle = true;
+
     /**
      * Initialize the http request.
-     * @param channel the connecting client socket channel
+     * @param connection the connection that the request was sent over
      * @param config the configuration of the server
+     * @param streaming the predicate that determines, whether the content of the route should be streamed
      */
     @SneakyThrows
-    public HttpRequest(AsynchronousSocketChannel channel, ServerConfig config) {
-        this.channel = channel;
+    public HttpRequest(HttpConnection connection, ServerConfig config, BiPredicate<Method, String> streaming) {
+        this.connection = connection;
+        this.channel = connection.getChannel();
         this.config = config;
+        this.streaming = streaming;
 
         SocketAddress remoteAddress = channel.getRemoteAddress();
         if (remoteAddress instanceof InetSocketAddress inet)
@@ -189,7 +242,8 @@ public class HttpRequest implements Request {
     public Future<Void> parse() {
         try {
             // read the fire chunk of the request for the headers
-            nextChunk(ReadState.HEADERS_START);
+            // make sure to propagate the errors of the read chain to the caller
+            nextChunk(ReadState.HEADERS_START).except(completionHandler::fail);
         } catch (Throwable t) {
             completionHandler.fail(t);
         }
@@ -209,6 +263,13 @@ public class HttpRequest implements Request {
             case SIZED_CONTENT_START -> handleSizedContentStart();
             case SIZED_CONTENT_CONTINUE -> handleSizedContentContinue();
             case SIZED_CONTENT_PARSE -> handleSizedContentParse();
+            case CHUNKED_CONTENT_START -> handleChunkedContentStart();
+            case CHUNKED_CONTENT_CONTINUE -> handleChunkedContentContinue();
+            case CHUNKED_CONTENT_PARSE -> handleChunkedContentParse();
+            case STREAMED_CONTENT_START -> handleStreamedContentStart();
+            case MULTI_PART_CONTENT_START -> handleMultipartContentStart();
+            case MULTI_PART_CONTENT_CONTINUE -> handleMultipartContentContinue();
+            case MULTI_PART_CONTENT_PARSE -> handleMultipartContentParse();
             default -> throw new RuntimeException("Unhandled end of handler chain: " + nextState);
         };
     }
@@ -219,157 +280,49 @@ public class HttpRequest implements Request {
      * @return future that will be completed when the request processing is completed
      */
     private Future<Void> handleHeaderStart() {
-        Future<Void> future = new Future<>();
-
-        readChannel(config.getHeaderReadSize()).tryThen(buffer -> {
-            String descriptor = buffer.readLine();
-            if (descriptor == null)
-                return;
-
-            StringTokenizer tokenizer = new StringTokenizer(descriptor);
-
-            // determine the request method
-            String methodToken = tokenizer.nextToken().toUpperCase();
-            method = Method.of(methodToken);
-            if (method == null)
-                throw new RuntimeException("Invalid request method: " + methodToken);
+        headerParser = new HeaderParser(config.getMaxHeaderSize());
 
-            // get the requested url
-            // the route and parameters are separated using a question mark
-            String[] url = tokenizer.nextToken().split("\\?");
-            route = url[0];
-            // parse the url parameters
-            parameters = url.length > 1
-                ? RequestParameters.parse(url[1])
-                : RequestParameters.empty();
-
-            // read the headers of the request
-            Tuple<String, Boolean> line;
-            while ((line = buffer.readHeaderLine()) != null) {
-                String header = line.getFirst();
-                boolean newLine = line.getSecond();
-                lastHeaderLinePart = header;
-
-                // check if the header size exceeded the initial 4kb buffer
-                // this means a header is incomplete, and we have to read the next chunk
-                if (!newLine) {
-                    incompleteHeader = true;
-                    nextChunk(ReadState.HEADERS_CONTINUE)
-                        .then(future::complete)
-                        .except(future::fail);
-                    return;
-                }
-
-                // the headers and the request body is separated using an empty line
-                // stop processing headers if the line is empty
-                if (header.isEmpty()) {
-                    // append the read amount of bytes to the total header size
-                    totalHeaderSize += buffer.position();
+        // check if the previous request of the connection was followed by the beginning of a pipelined request
+        byte[] leftover = connection.takeLeftover();
+        if (leftover == null)
+            return handleHeaderContinue();
 
-                    // read all remaining bytes from the buffer
-                    contentBuffer.write(buffer.readAllBytes());
-
-                    nextChunk(ReadState.HEADERS_PARSE)
-                        .then(future::complete)
-                        .except(future::fail);
-                    return;
-                }
-
-                // append the header line
-                headerLines.add(header);
-            }
-
-            // headers are not finished yet, append the whole size of the current buffer
-            totalHeaderSize += buffer.size();
-
-            // end of buffer reached, but the header is not complete
-            // this means we have to read the next chunk
-            // no header line is incomplete, so we don't have to append the last header line part
-            nextChunk(ReadState.HEADERS_CONTINUE)
-                .then(future::complete)
-                .except(future::fail);
-        }).except(future::fail);
-
-        return future;
+        try {
+            headerParser.feed(leftover);
+            idle = !headerParser.isStarted();
+
+            // parse the headers, and read the rest of them, if the leftover did not contain all of them
+            return headerParser.parse()
+                ? handleHeaderParse()
+                : handleHeaderContinue();
+        } catch (Exception e) {
+            return Future.failed(e);
+        }
     }
 
     /**
-     * Handle the continuation of the header reading process, because the initial chunk couldn't fit the entire
-     * headers. Read the next {@link ServerConfig#getHeaderReadSize()} chunk from the socket channel.
+     * Handle the continuation of the header reading process, because the previous chunks couldn't fit the entire
+     * headers. Read the next chunk from the socket channel, and append it to the head of the header parser.
      * @return future that will be completed when the request processing is completed
      */
     private Future<Void> handleHeaderContinue() {
-        // before reading the next header chunk, check if the header size has not exceeded the maximum size
-        if (totalHeaderSize > config.getMaxHeaderSize())
-            return Future.failed(new RuntimeException(
-                "Header size " + totalHeaderSize + " exceeded maximum size of " + config.getMaxHeaderSize() + " bytes"
-            ));
-
         Future<Void> future = new Future<>();
 
-        readChannel(config.getHeaderReadSize()).tryThen(buffer -> {
-            // check if a header was started in the previous chunk read
-            if (incompleteHeader) {
-                Tuple<String, Boolean> remainingLine = buffer.readHeaderLine();
-                // legitimately, this should never happen
-                if (remainingLine == null)
-                    throw new RuntimeException("Unable to read remaining header line from");
-
-                // legitimately, the header should not fill the entire chunk
-                boolean newLine = remainingLine.getSecond();
-                if (!newLine)
-                    throw new RuntimeException("Header line exceeded chunk size");
-
-                // register the remaining header line
-                headerLines.add(lastHeaderLinePart + remainingLine.getFirst());
-                incompleteHeader = false;
-            }
-
-            // read the headers of the request
-            Tuple<String, Boolean> line;
-            while ((line = buffer.readHeaderLine()) != null) {
-                String header = line.getFirst();
-                boolean newLine = line.getSecond();
-                lastHeaderLinePart = header;
-
-                // check if the header size exceeded the initial 4kb buffer
-                // this means a header is incomplete, and we have to read the next chunk
-                if (!newLine) {
-                    incompleteHeader = true;
-                    nextChunk(ReadState.HEADERS_CONTINUE)
-                        .then(future::complete)
-                        .except(future::fail);
-                    return;
-                }
-
-                // the headers and the request body is separated using an empty line
-                // stop processing headers if the line is empty
-                if (header.isEmpty()) {
-                    // append the read amount of bytes to the total header size
-                    totalHeaderSize += buffer.position();
-
-                    // read all remaining bytes from the buffer
-                    contentBuffer.write(buffer.readAllBytes());
-
-                    nextChunk(ReadState.HEADERS_PARSE)
-                        .then(future::complete)
-                        .except(future::fail);
-                    return;
-                }
+        // use the idle timeout, if the connection is waiting for a subsequent request
+        Tuple<Long, TimeUnit> timeout = idle && connection.isReused()
+            ? config.getKeepAliveTimeout()
+            : config.getReadTimeout();
 
-                // append the header line
-                headerLines.add(header);
-            }
+        readChannel(config.getHeaderReadSize(), timeout, headerParser::feed).tryThen(bytesRead -> {
+            // check if the client has started sending the request
+            idle = !headerParser.isStarted();
 
-            // headers are not finished yet, append the whole size of the current buffer
-            totalHeaderSize += buffer.size();
+            // parse the newly read bytes, and read the next chunk, if the headers are not finished yet
+            Future<Void> callback = headerParser.parse()
+                ? handleHeaderParse()
+                : handleHeaderContinue();
 
-            // end of buffer reached, but the header is not complete
-            // this means we have to read the next chunk
-            // no header line is incomplete, so we don't have to append the last header line part
-            nextChunk(ReadState.HEADERS_CONTINUE)
-                .then(future::complete)
-                .except(future::fail);
+            callback.then(future::complete).except(future::fail);
         }).except(future::fail);
 
         return future;
@@ -383,31 +336,68 @@ public class HttpRequest implements Request {
         Future<Void> future = new Future<>();
 
         Future.tryComplete(() -> {
-            // header processing has been finished, parse the headers
-            headers = HttpHeaders.parse(headerLines);
+            // determine the request method, that has been recognized from the raw bytes of the request line
+            // the unrecognized methods are passed to the router as unknown methods
+            method = headerParser.method();
 
-            // parse the request cookies
-            // check if there is a header with the key "cookie"
-            String header = headers.get("cookie");
-            cookies = header != null
-                ? RequestCookies.parse(header)
-                : RequestCookies.empty();
+            // get the requested url
+            // the route and parameters are separated using a question mark,
+            // the parameters are only decoded when they are requested
+            route = headerParser.route();
+            parameters = headerParser.parameters();
+
+            // get the protocol version of the request
+            version = headerParser.version();
+
+            // header processing has been finished, create the registry of the headers
+            headers = headerParser.headers();
 
             // create request transfer data holder
             data = new RequestData();
 
-            // do not parse the content if the request does not have a content type, there is no content
-            if (!headers.has("content-type")) {
+            // validate the declared size of the content before it is read, as the conflicting values could make
+            // the content and the next request of a persistent connection be framed differently by a proxy
+            declaredLength = parseContentLength();
+
+            // the content must be framed by either the chunked encoding or the content length, but not both
+            boolean chunked = isChunked();
+            if (chunked && declaredLength >= 0)
+                throw new IllegalStateException("Request must not specify both `transfer-encoding` and `content-length`");
+
+            // do not parse the content if the request does not specify any content
+            // the content must be consumed even without a content type, otherwise it would be
+            // treated as the next request of a persistent connection
+            if (!chunked && !headers.has(HeaderNames.CONTENT_TYPE) && !headers.has(HeaderNames.CONTENT_LENGTH)) {
+                // the bytes after the headers belong to the next pipelined request
+                connection.setLeftover(Arrays.copyOfRange(
+                    headerParser.array(), headerParser.getHeadEnd(), headerParser.limit()
+                ));
+                // the handlers of the streaming routes still expect a stream, even if it is empty
+                if (streaming.test(method, route))
+                    stream = new BodyStream(connection, config, 0, ByteBuffer.allocate(0));
                 completionHandler.complete(null);
                 return null;
             }
 
-            if (headers.get("content-type").equals("multipart/form-data"))
-                throw new RuntimeException("multipart/form-data not implemented yet");
+            // let the handler of a streaming route consume the content, instead of buffering it
+            if (streaming.test(method, route)) {
+                handleStreamedContentStart()
+                    .then(future::complete)
+                    .except(future::fail);
+                return null;
+            }
 
-            handleSizedContentStart()
-                .then(future::complete)
-                .except(future::fail);
+            // read the content using the reader of its content type and framing
+            String contentType = headers.get(HeaderNames.CONTENT_TYPE);
+            Future<Void> callback;
+            if (contentType != null && contentType.toLowerCase().startsWith("multipart/form-data"))
+                callback = handleMultipartContentStart();
+            else if (chunked)
+                callback = handleChunkedContentStart();
+            else
+                callback = handleSizedContentStart();
+
+            callback.then(future::complete).except(future::fail);
 
             return null;
         }).except(future::fail);
@@ -420,12 +410,34 @@ public class HttpRequest implements Request {
      * @return future that will be completed when the request processing is completed
      */
     private Future<Void> handleSizedContentStart() {
-        if (!headers.has("content-length"))
+        if (!headers.has(HeaderNames.CONTENT_LENGTH))
             return Future.failed(new IllegalStateException(
-                "Header `content-length` must be specified for `" + headers.get("content-type") + "` request"
+                "Header `content-length` must be specified for `" + headers.get(HeaderNames.CONTENT_TYPE) + "` request"
             ));
 
-        contentLength = Integer.parseInt(headers.get("content-length"));
+        if (declaredLength > config.getMaxContentLength())
+            return Future.failed(new IllegalStateException(
+                "Content length " + declaredLength + " exceeded maximum size of " +
+                config.getMaxContentLength() + " bytes"
+            ));
+        contentLength = (int) declaredLength;
+
+        // the bytes read after the headers are the beginning of the content
+        content = new byte[contentLength];
+        int headEnd = headerParser.getHeadEnd();
+        int available = headerParser.limit() - headEnd;
+        contentSize = Math.min(available, contentLength);
+        System.arraycopy(headerParser.array(), headEnd, content, 0, contentSize);
+
+        // the bytes after the content belong to the next pipelined request
+        if (available > contentLength)
+            connection.setLeftover(Arrays.copyOfRange(
+                headerParser.array(), headEnd + contentLength, headerParser.limit()
+            ));
+
+        // check if the whole content has been read with the headers
+        if (contentSize == contentLength)
+            return handleSizedContentParse();
 
         return handleSizedContentContinue();
     }
@@ -439,19 +451,16 @@ public class HttpRequest implements Request {
     private Future<Void> handleSizedContentContinue() {
         Future<Void> future = new Future<>();
 
-        int remainingBytes = contentLength - contentBuffer.size();
+        // only read the remaining bytes of the content, so the next pipelined request is not consumed
+        int remainingBytes = contentLength - contentSize;
         int readSize = Math.min(config.getContentReadSize(), remainingBytes);
 
-        readChannel(readSize).tryThen(buffer -> {
-            contentBuffer.write(buffer.readAllBytes());
-
-            if (contentBuffer.size() > config.getMaxContentLength())
-                throw new RuntimeException(
-                    "Content length " + contentBuffer.size() + " exceeded maximum size of " +
-                    config.getMaxContentLength() + " bytes"
-                );
-
-            Future<Void> callback = contentBuffer.size() < contentLength
+        readChannel(readSize, config.getReadTimeout(), buffer -> {
+            int length = buffer.remaining();
+            buffer.get(content, contentSize, length);
+            contentSize += length;
+        }).tryThen(bytesRead -> {
+            Future<Void> callback = contentSize < contentLength
                 ? handleSizedContentContinue()
                 : handleSizedContentParse();
 
@@ -462,82 +471,305 @@ public class HttpRequest implements Request {
     }
 
     /**
-     * Handle the parsing of the sized content. The content has been read, now parse it.
+     * Handle the parsing of the sized content. The content has been read, it is only decoded,
+     * when the handlers ask for the body or the json of the request.
      * @return future that will be completed when the request processing is completed
      */
     private Future<Void> handleSizedContentParse() {
         return Future.tryComplete(() -> {
-            binary = contentBuffer.toByteArray();
-            body = contentBuffer.toString(StandardCharsets.UTF_8);
+            binary = content;
+            completionHandler.complete(null);
+            return null;
+        });
+    }
 
-            // get the type of the requested content
-            if (headers.get("content-type").equals("application/json")) {
-                // parse the request body to json
-                try {
-                    json = (JsonObject) JsonParser.parseString(body);
-                } catch (Exception ignored) {}
+    /**
+     * Handle the beginning of the chunked content reading process. The size of the content is not known in
+     * advance, so the content array grows as the chunks are decoded, up to the {@link ServerConfig#getMaxContentLength()}.
+     * @return future that will be completed when the request processing is completed
+     */
+    private Future<Void> handleChunkedContentStart() {
+        try {
+            chunkedDecoder = new ChunkedDecoder(config.getMaxHeaderSize());
+            content = new byte[Math.min(config.getContentReadSize(), config.getMaxContentLength())];
+
+            // the bytes read after the headers are the beginning of the content
+            ByteBuffer initial = ByteBuffer.wrap(
+                headerParser.array(), headerParser.getHeadEnd(), headerParser.limit() - headerParser.getHeadEnd()
+            );
+            appendChunked(initial);
+        } catch (Exception e) {
+            return Future.failed(e);
+        }
+
+        return chunkedDecoder.isFinished()
+            ? handleChunkedContentParse()
+            : handleChunkedContentContinue();
+    }
+
+    /**
+     * Handle the continuation of the chunked content reading process. Read the next
+     * {@link ServerConfig#getContentReadSize()} chunk from the socket channel, and decode it into the content array.
+     * @return future that will be completed when the request processing is completed
+     */
+    private Future<Void> handleChunkedContentContinue() {
+        Future<Void> future = new Future<>();
+
+        readChannel(config.getContentReadSize(), config.getReadTimeout(), this::appendChunked).tryThen(bytesRead -> {
+            Future<Void> callback = chunkedDecoder.isFinished()
+                ? handleChunkedContentParse()
+                : handleChunkedContentContinue();
+
+            callback.then(future::complete).except(future::fail);
+        }).except(future::fail);
+
+        return future;
+    }
+
+    /**
+     * Decode the chunked bytes of the buffer, and append the decoded content to the content array.
+     * The bytes after the end of the content are stored for the next pipelined request.
+     * @param buffer the buffer of the chunked bytes
+     */
+    private void appendChunked(ByteBuffer buffer) {
+        int start = buffer.position();
+        int length = chunkedDecoder.decode(buffer);
+
+        if (contentSize + length > config.getMaxContentLength())
+            throw new IllegalStateException(
+                "Content length exceeded maximum size of " + config.getMaxContentLength() + " bytes"
+            );
+
+        // grow the content array, as the size of the content is not known in advance
+        if (contentSize + length > content.length) {
+            int capacity = Math.max(contentSize + length, (int) Math.min(content.length * 2L, config.getMaxContentLength()));
+            content = Arrays.copyOf(content, capacity);
+        }
+        buffer.get(start, content, contentSize, length);
+        contentSize += length;
+
+        // the bytes after the content belong to the next pipelined request
+        if (chunkedDecoder.isFinished() && buffer.hasRemaining()) {
+            byte[] leftover = new byte[buffer.remaining()];
+            buffer.get(leftover);
+            connection.setLeftover(leftover);
+        }
+    }
+
+    /**
+     * Handle the parsing of the chunked content. The content has been decoded, trim the content array
+     * to the size of the content, then parse it as a sized content.
+     * @return future that will be completed when the request processing is completed
+     */
+    private Future<Void> handleChunkedContentParse() {
+        if (content.length != contentSize)
+            content = Arrays.copyOf(content, contentSize);
+        return handleSizedContentParse();
+    }
+
+    /**
+     * Handle the beginning of the streamed content. The content is not read here, the request is passed
+     * to the handlers right away, which read the content through the {@link BodyStream} of the request.
+     * @return future that will be completed when the request processing is completed
+     */
+    private Future<Void> handleStreamedContentStart() {
+        return Future.tryComplete(() -> {
+            // the bytes read after the headers are the beginning of the content
+            int headEnd = headerParser.getHeadEnd();
+            int available = headerParser.limit() - headEnd;
+
+            // the chunked content is decoded by the stream, as the handler consumes it
+            if (isChunked()) {
+                ByteBuffer initial = ByteBuffer.wrap(headerParser.array(), headEnd, available);
+                stream = new BodyStream(connection, config, new ChunkedDecoder(config.getMaxHeaderSize()), initial);
+                completionHandler.complete(null);
+                return null;
             }
 
-            completionHandler.complete(null);
+            if (!headers.has(HeaderNames.CONTENT_LENGTH))
+                throw new IllegalStateException(
+                    "Header `content-length` must be specified for `" + headers.get(HeaderNames.CONTENT_TYPE) + "` request"
+                );
+
+            long length = declaredLength;
+            if (length > config.getMaxStreamedContentLength())
+                throw new IllegalStateException(
+                    "Content length " + length + " exceeded maximum size of " +
+                    config.getMaxStreamedContentLength() + " bytes"
+                );
+
+            int initialSize = (int) Math.min(available, length);
 
+            // the bytes after the content belong to the next pipelined request
+            if (available > length)
+                connection.setLeftover(Arrays.copyOfRange(
+                    headerParser.array(), headEnd + initialSize, headerParser.limit()
+                ));
+
+            ByteBuffer initial = ByteBuffer.wrap(headerParser.array(), headEnd, initialSize);
+            stream = new BodyStream(connection, config, length, initial);
+
+            completionHandler.complete(null);
             return null;
         });
     }
 
     /**
-     * Parse the multipart/form-data body of the request. Unfortunately, multipart/form-data does not guarantee
-     * a proper content length, so we have to read lines until we find the boundary and a <code>--</code> suffix.
-     * @param stream reader of the request body
-     * @param boundary boundary of the multipart/form-data body
+     * Handle the beginning of the multipart/form-data content reading process. The content is fed to the
+     * {@link MultipartParser} as it is read, so the content is never buffered entirely, and the large form entries
+     * are written to temporary files, which are deleted by {@link #release()}.
+     * @return future that will be completed when the request processing is completed
      */
-    @SneakyThrows
-    private void parseMultipartData(PushbackBuffer stream, String boundary) {
-        boolean started = false;
-
-        List<String> lines = new ArrayList<>();
-        List<FormEntry> entries = new ArrayList<>();
-
-        // read all the available lines from the connecting socket
-        String line;
-        while ((line = stream.readLine()) != null) {
-            // check if a new form entry has started
-            if (line.equals("--" + boundary)) {
-                // indicate, that the first form entry has started
-                if (!started)
-                    started = true;
-                // if the form entries have already started, parse the previous one
-                else {
-                    entries.add(RequestFormEntry.parse(lines));
-                    lines = new ArrayList<>();
-                }
+    private Future<Void> handleMultipartContentStart() {
+        try {
+            String boundary = MultipartParser.parameters(headers.get(HeaderNames.CONTENT_TYPE)).get("boundary");
+            if (boundary == null || boundary.isEmpty())
+                throw new IllegalStateException("Header `content-type` must specify the multipart boundary");
+            multipartParser = new MultipartParser(boundary, config);
+
+            // the bytes read after the headers are the beginning of the content
+            int headEnd = headerParser.getHeadEnd();
+            int available = headerParser.limit() - headEnd;
+
+            if (isChunked()) {
+                chunkedDecoder = new ChunkedDecoder(config.getMaxHeaderSize());
+                multipartLength = -1;
+            } else {
+                if (!headers.has(HeaderNames.CONTENT_LENGTH))
+                    throw new IllegalStateException(
+                        "Header `content-length` must be specified for `multipart/form-data` request"
+                    );
+
+                multipartLength = declaredLength;
+                if (multipartLength > config.getMaxMultipartLength())
+                    throw new IllegalStateException(
+                        "Content length " + multipartLength + " exceeded maximum size of " +
+                        config.getMaxMultipartLength() + " bytes"
+                    );
+                available = (int) Math.min(available, multipartLength);
+
+                // the bytes after the content belong to the next pipelined request
+                if (headEnd + available < headerParser.limit())
+                    connection.setLeftover(Arrays.copyOfRange(
+                        headerParser.array(), headEnd + available, headerParser.limit()
+                    ));
             }
 
-            // check if the form entries have ended
-            else if (line.equals("--" + boundary + "--")) {
-                // parse the last form entry and stop reading
-                entries.add(RequestFormEntry.parse(lines));
-                break;
-            }
+            feedMultipart(ByteBuffer.wrap(headerParser.array(), headEnd, available));
+        } catch (Exception e) {
+            return Future.failed(e);
+        }
 
-            // if the form entries have started, add the line to the current form entry
-            else
-                lines.add(line);
+        return isMultipartFinished()
+            ? handleMultipartContentParse()
+            : handleMultipartContentContinue();
+    }
+
+    /**
+     * Handle the continuation of the multipart/form-data content reading process. Read the next
+     * {@link ServerConfig#getContentReadSize()} chunk from the socket channel, and feed it to the multipart parser.
+     * @return future that will be completed when the request processing is completed
+     */
+    private Future<Void> handleMultipartContentContinue() {
+        Future<Void> future = new Future<>();
+
+        // only read the remaining bytes of the sized content, so the next pipelined request is not consumed
+        int readSize = multipartLength < 0
+            ? config.getContentReadSize()
+            : (int) Math.min(config.getContentReadSize(), multipartLength - multipartSize);
+
+        readChannel(readSize, config.getReadTimeout(), this::feedMultipart).tryThen(bytesRead -> {
+            Future<Void> callback = isMultipartFinished()
+                ? handleMultipartContentParse()
+                : handleMultipartContentContinue();
+
+            callback.then(future::complete).except(future::fail);
+        }).except(future::fail);
+
+        return future;
+    }
+
+    /**
+     * Feed the bytes of the buffer to the multipart parser. The chunked content is decoded in place first,
+     * and the bytes after the end of the content are stored for the next pipelined request.
+     * @param buffer the buffer of the content bytes
+     */
+    @SneakyThrows
+    private void feedMultipart(ByteBuffer buffer) {
+        ByteBuffer data = buffer;
+        if (chunkedDecoder != null) {
+            int start = buffer.position();
+            int length = chunkedDecoder.decode(buffer);
+            data = buffer.slice(start, length);
+
+            // the bytes after the content belong to the next pipelined request
+            if (chunkedDecoder.isFinished() && buffer.hasRemaining()) {
+                byte[] leftover = new byte[buffer.remaining()];
+                buffer.get(leftover);
+                connection.setLeftover(leftover);
+            }
         }
 
-        multipart = new RequestMultipartForm(entries);
+        multipartSize += data.remaining();
+        if (multipartSize > config.getMaxMultipartLength())
+            throw new IllegalStateException(
+                "Content length exceeded maximum size of " + config.getMaxMultipartLength() + " bytes"
+            );
+
+        multipartParser.feed(data);
     }
 
     /**
-     * Read the next `bufferSize` amount of bytes from the socket channel.
-     * @param bufferSize the amount of bytes to be read
-     * @return the future that will be completed with the buffer that was read
+     * Indicate, whether the multipart/form-data content has been read entirely.
+     * @return true if there are no more bytes of the content to be read
      */
-    private Future<PushbackBuffer> readChannel(int bufferSize) {
-        Future<PushbackBuffer> future = new Future<>();
+    private boolean isMultipartFinished() {
+        return chunkedDecoder != null ? chunkedDecoder.isFinished() : multipartSize >= multipartLength;
+    }
 
-        // allocate a buffer of the specified chunk size
-        ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
-        Tuple<Long, TimeUnit> readTimeout = config.getReadTimeout();
+    /**
+     * Handle the parsing of the multipart/form-data content. The parts have been parsed as the content was read,
+     * collect them into the multipart form of the request.
+     * @return future that will be completed when the request processing is completed
+     */
+    private Future<Void> handleMultipartContentParse() {
+        return Future.tryComplete(() -> {
+            multipart = multipartParser.finish();
+            completionHandler.complete(null);
+            return null;
+        });
+    }
+
+    /**
+     * Indicate, whether the request holds resources, that must be released by {@link #release()}.
+     * @return true if the multipart/form-data entries have been written to temporary files
+     */
+    public boolean hasResources() {
+        return multipartParser != null && multipartParser.hasFiles();
+    }
+
+    /**
+     * Release the resources of the request, after the response has been written. This deletes the temporary
+     * files of the multipart/form-data entries, that have exceeded the {@link ServerConfig#getMultipartMemoryThreshold()}.
+     * The request may be released multiple times, for example if the connection is closed whilst the response is written.
+     */
+    public synchronized void release() {
+        if (multipartParser != null)
+            multipartParser.deleteFiles();
+    }
+
+    /**
+     * Read the next chunk of bytes from the socket channel into a pooled buffer. The buffer is passed to the consumer
+     * to copy the read bytes, then it is returned to the pool, so the buffer must not be retained by the consumer.
+     * @param readSize the maximum amount of bytes to read
+     * @param readTimeout the maximum time to wait for the data
+     * @param consumer the consumer of the read bytes
+     * @return the future that will be completed with the amount of bytes that were read
+     */
+    private Future<Integer> readChannel(int readSize, Tuple<Long, TimeUnit> readTimeout, Consumer<ByteBuffer> consumer) {
+        Future<Integer> future = new Future<>();
+        BufferPool bufferPool = connection.getBufferPool();
+        ByteBuffer buffer = bufferPool.acquire(readSize);
 
         // create a handler that will be called when the buffer has been read
         CompletionHandler<Integer, Void> handler = new CompletionHandler<>() {
@@ -545,27 +777,35 @@ public class HttpRequest implements Request {
             public void completed(Integer bytesRead, Void attachment) {
                 // check if the end of the stream has been reached
                 if (bytesRead == -1) {
+                    bufferPool.release(buffer);
                     future.fail(new RuntimeException("End of stream reached"));
                     return;
                 }
 
-                // get the read bytes from the buffer
-                byte[] data = new byte[bytesRead];
-                buffer.flip();
-                buffer.get(data);
-
-                // create an input stream from the read bytes
-                ByteArrayInputStream stream = new ByteArrayInputStream(data);
+                // copy the read bytes, before the buffer is reused by another read
+                try {
+                    consumer.accept(buffer.flip());
+                } catch (Exception e) {
+                    future.fail(e);
+                    return;
+                } finally {
+                    bufferPool.release(buffer);
+                }
 
-                // wrap the input stream in a pushback buffer
-                future.complete(new PushbackBuffer(stream));
+                future.complete(bytesRead);
             }
 
             @Override
             public void failed(Throwable error, Void attachment) {
+                // the channel may still write into the buffer of a timed out read, so it must not be reused
+                if (!(error instanceof InterruptedByTimeoutException))
+                    bufferPool.release(buffer);
                 // check if and error occurred whilst reading from the socket channel
-                Logger.error("Failed to read from channel:");
-                error.printStackTrace();
+                // an idle persistent connection timing out or being closed is not an error
+                if (!idle) {
+                    Logger.error("Failed to read from channel:");
+                    error.printStackTrace();
+                }
                 future.fail(error);
             }
         };
@@ -575,6 +815,86 @@ public class HttpRequest implements Request {
         return future;
     }
 
+    /**
+     * Parse the size of the content, that is declared by the `Content-Length` header. The header may be repeated,
+     * or it may hold a list of values, but all of them must be the same non-negative integer.
+     * @return the declared size of the content, or -1 if the header is missing
+     * @throws IllegalStateException if the header holds an invalid value, or conflicting values
+     */
+    private long parseContentLength() {
+        long length = -1;
+        for (String header : headers.getAll(HeaderNames.CONTENT_LENGTH)) {
+            for (String value : header.split(",", -1)) {
+                long parsed = parseDigits(value.trim());
+                if (length >= 0 && parsed != length)
+                    throw new IllegalStateException("Conflicting content length values: " + length + ", " + parsed);
+                length = parsed;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Parse the value of a `Content-Length` header, that must only consist of decimal digits.
+     * @param value the value of the header
+     * @return the parsed non-negative integer
+     * @throws IllegalStateException if the value is not a non-negative integer
+     */
+    private long parseDigits(String value) {
+        if (value.isEmpty())
+            throw new IllegalStateException("Invalid content length: " + value);
+
+        long result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            // the signs, the whitespaces and the values that do not fit a long are all rejected
+            if (c < '0' || c > '9' || result > (Long.MAX_VALUE - (c - '0')) / 10)
+                throw new IllegalStateException("Invalid content length: " + value);
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Indicate, whether the content of the request is sent using the chunked transfer encoding.
+     * @return true if the content is chunked
+     * @throws IllegalStateException if the content is sent using an unsupported, or multiple transfer encodings
+     */
+    private boolean isChunked() {
+        List<String> encodings = headers.getAll(HeaderNames.TRANSFER_ENCODING);
+        if (encodings.isEmpty())
+            return false;
+
+        // the repeated header lines would apply multiple encodings, the chunked one is only supported on its own
+        if (encodings.size() > 1)
+            throw new IllegalStateException("Multiple transfer encodings are not supported");
+        String encoding = encodings.get(0);
+
+        // the chunked encoding must be the last one applied to the content
+        encoding = encoding.trim().toLowerCase();
+        if (!encoding.equals("chunked"))
+            throw new IllegalStateException("Unsupported transfer encoding: " + encoding);
+        return true;
+    }
+
+    /**
+     * Indicate, whether the client wants the connection to be kept alive after the response.
+     * HTTP/1.1 connections are persistent by default, unless the client sends `Connection: close`,
+     * whilst HTTP/1.0 connections must explicitly ask for `Connection: keep-alive`.
+     * @return true if the connection should be kept alive
+     */
+    public boolean isKeepAlive() {
+        String header = headers != null ? headers.get(HeaderNames.CONNECTION) : null;
+        if (header != null) {
+            header = header.toLowerCase();
+            if (header.contains("close"))
+                return false;
+            if (header.contains("keep-alive"))
+                return true;
+        }
+        return "HTTP/1.1".equals(version);
+    }
+
     /**
      * Get the requested url.
      */
@@ -634,10 +954,18 @@ public class HttpRequest implements Request {
     }
 
     /**
-     * Get the registry of request cookies.
+     * Get the registry of request cookies. The registry is created when it is first requested,
+     * and the cookies are only parsed, when a cookie is first requested.
      */
     @Override
     public @NotNull Cookies cookies() {
+        if (cookies == null) {
+            // check if there is a header with the key "cookie"
+            String header = headers.get(HeaderNames.COOKIE);
+            cookies = header != null
+                ? RequestCookies.parse(header)
+                : RequestCookies.empty();
+        }
         return cookies;
     }
 
@@ -658,18 +986,33 @@ public class HttpRequest implements Request {
     }
 
     /**
-     * Get the request body content.
+     * Get the request body content. The content is decoded only once, when it is first requested.
      */
     @Override
     public @Nullable String body() {
+        if (body == null && binary != null)
+            body = new String(binary, StandardCharsets.UTF_8);
         return body;
     }
 
     /**
-     * Get the request body json.
+     * Get the request body json. The content is parsed only once, when it is first requested.
      */
     @Override
     public @Nullable JsonObject json() {
+        if (jsonParsed)
+            return json;
+
+        // only parse the content, if the client has specified a json content type
+        if (binary != null && "application/json".equals(headers.get(HeaderNames.CONTENT_TYPE))) {
+            // parse the bytes directly, unless the body has already been decoded
+            try {
+                json = (JsonObject) (body != null
+                    ? JsonParser.parseString(body)
+                    : JsonParser.parseReader(new InputStreamReader(new ByteArrayInputStream(binary), StandardCharsets.UTF_8)));
+            } catch (Exception ignored) {}
+        }
+        jsonParsed = true;
         return json;
     }
 
@@ -681,6 +1024,14 @@ public class HttpRequest implements Request {
         return multipart;
     }
 
+    /**
+     * Get the streamed content of the request.
+     */
+    @Override
+    public @Nullable BodyStream stream() {
+        return stream;
+    }
+
     /**
      * Get the request parameters.
      */
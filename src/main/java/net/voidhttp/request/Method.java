@@ -1,5 +1,7 @@
 package net.voidhttp.request;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * HTTP defines a set of request methods to indicate the desired action to be performed for a given resource.
  * Although they can also be nouns, these request methods are sometimes referred to as HTTP verbs.
@@ -60,20 +62,83 @@ public enum Method {
     UNKNOWN;
 
     /**
-     * Get the request method with the given name.
+     * The request methods, that are not copied on each lookup, unlike the array returned by {@link #values()}.
+     */
+    private static final Method[] VALUES = values();
+
+    /**
+     * The ASCII bytes of the request method names, indexed by the ordinals of the methods.
+     */
+    private static final byte[][] NAMES = new byte[VALUES.length][];
+
+    static {
+        for (Method method : VALUES)
+            NAMES[method.ordinal()] = method.name().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Get the request method with the given name, ignoring the case of the name.
      * @param name request method name
      * @return found request method
      */
     public static Method of(String name) {
-        // convert the name to lowercase
-        name = name.toLowerCase();
-        // loop through the method values
-        for (Method method : values()) {
-            // check if the method name matches
-            if (method.name().toLowerCase().equals(name))
+        for (Method method : VALUES) {
+            if (method.name().equalsIgnoreCase(name))
                 return method;
         }
         // method not found
         return UNKNOWN;
     }
+
+    /**
+     * Get the request method, that is specified by the range of the raw bytes, without creating a string.
+     * The method is recognized by the length and the first byte of the token, so at most one name is compared.
+     * @param data the raw bytes of the request line
+     * @param start the offset of the method token
+     * @param end the end offset of the method token
+     * @return found request method, or {@link #UNKNOWN} if the token is not a known method
+     */
+    public static Method of(byte[] data, int start, int end) {
+        if (start == end)
+            return UNKNOWN;
+
+        // the first byte is converted to uppercase, the rest of the token is compared ignoring the case as well
+        Method method = switch (end - start) {
+            case 3 -> switch (data[start] & 0xDF) {
+                case 'G' -> GET;
+                case 'P' -> PUT;
+                default -> UNKNOWN;
+            };
+            case 4 -> switch (data[start] & 0xDF) {
+                case 'H' -> HEAD;
+                case 'P' -> POST;
+                default -> UNKNOWN;
+            };
+            case 5 -> switch (data[start] & 0xDF) {
+                case 'P' -> PATCH;
+                case 'T' -> TRACE;
+                default -> UNKNOWN;
+            };
+            case 6 -> (data[start] & 0xDF) == 'D' ? DELETE : UNKNOWN;
+            case 7 -> switch (data[start] & 0xDF) {
+                case 'C' -> CONNECT;
+                case 'O' -> OPTIONS;
+                default -> UNKNOWN;
+            };
+            default -> UNKNOWN;
+        };
+        if (method == UNKNOWN)
+            return UNKNOWN;
+
+        // make sure the rest of the token matches the recognized method
+        byte[] name = NAMES[method.ordinal()];
+        for (int i = 1; i < name.length; i++) {
+            int b = data[start + i];
+            if (b >= 'a' && b <= 'z')
+                b -= 32;
+            if (b != name[i])
+                return UNKNOWN;
+        }
+        return method;
+    }
 }
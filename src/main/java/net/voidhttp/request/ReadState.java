@@ -42,21 +42,45 @@ public enum ReadState {
      */
     SIZED_CONTENT_PARSE,
 
+    /**
+     * `CHUNKED_CONTENT_START` indicates that the worker has finished parsing the headers of a request, that is sent
+     * using the chunked transfer encoding, and the worker will begin decoding the content that was read with the headers.
+     */
+    CHUNKED_CONTENT_START,
+
+    /**
+     * `CHUNKED_CONTENT_CONTINUE` indicates that the last chunk has not been decoded yet, so the worker will
+     * read another {@link ServerConfig#getContentReadSize()} chunk from the socket.
+     */
+    CHUNKED_CONTENT_CONTINUE,
+
+    /**
+     * `CHUNKED_CONTENT_PARSE` indicates that the worker has finished decoding the chunked content, and the worker
+     * will begin parsing the decoded content data.
+     */
+    CHUNKED_CONTENT_PARSE,
+
+    /**
+     * `STREAMED_CONTENT_START` indicates that the worker has finished parsing the headers of a streaming route,
+     * and the content will be read from the socket, as the handler consumes it.
+     */
+    STREAMED_CONTENT_START,
+
     /**
      * `MULTI_PART_CONTENT_START` indicates that the worker has finished parsing the headers, and the worker will begin
-     * reading the content from the socket in chunks of {@link ServerConfig#getContentReadSize()}.
+     * parsing the multipart/form-data content, that was read along with the headers.
      */
     MULTI_PART_CONTENT_START,
 
     /**
-     * `MULTI_PART_CONTENT_CONTINUE` indicates that the initial {@link ServerConfig#getContentReadSize()} chunk was not
-     * enough to process the content, so the worker will read another chunk from the socket.
+     * `MULTI_PART_CONTENT_CONTINUE` indicates that the content has not been read entirely, so the worker will read
+     * another {@link ServerConfig#getContentReadSize()} chunk from the socket, and feed it to the multipart parser.
      */
     MULTI_PART_CONTENT_CONTINUE,
 
     /**
      * `MULTI_PART_CONTENT_PARSE` indicates that the worker has finished reading the content from the socket, and the
-     * worker will begin parsing the raw content data.
+     * worker will collect the parts of the multipart parser into the multipart form.
      */
     MULTI_PART_CONTENT_PARSE,
 }
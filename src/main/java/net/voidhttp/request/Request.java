@@ -84,6 +84,12 @@ public interface Request {
      */
     @Nullable MultipartForm multipart();
 
+    /**
+     * Get the streamed content of the request. This is only available for the streaming routes,
+     * in which case the content is not buffered into the other body accessors.
+     */
+    @Nullable BodyStream stream();
+
     /**
      * Get the request parameters.
      */
@@ -1,25 +1,44 @@
 package net.voidhttp.request.cookie;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Represents an HTTP request cookie manager.
+ * <p>
+ * The cookies are parsed from the `Cookie` header when they are first requested, so the requests whose
+ * handlers do not read any cookies never parse the header.
  */
 public class RequestCookies implements Cookies {
     /**
-     * The registry of the requested cookies.
+     * The raw value of the `Cookie` header, that has not been parsed yet.
      */
-    private final Map<String, String> cookies;
+    private final String header;
+
+    /**
+     * The registry of the requested cookies, that is created when a cookie is first requested.
+     * The field is volatile, so the handlers running on other threads see the parsed registry entirely.
+     */
+    private volatile Map<String, String> cookies;
 
     /**
      * Initialize request cookies.
      * @param cookies cookies registry
      */
     public RequestCookies(Map<String, String> cookies) {
+        this.header = null;
         this.cookies = cookies;
     }
 
+    /**
+     * Initialize request cookies, that are parsed from the header on demand.
+     * @param header cookies header
+     */
+    private RequestCookies(String header) {
+        this.header = header;
+    }
+
     /**
      * Determine if a cookie with the given name exists.
      * @param name cookie name
@@ -27,7 +46,7 @@ public class RequestCookies implements Cookies {
      */
     @Override
     public boolean has(String name) {
-        return cookies.containsKey(name);
+        return cookies().containsKey(name);
     }
 
     /**
@@ -37,7 +56,7 @@ public class RequestCookies implements Cookies {
      */
     @Override
     public String get(String name) {
-        return cookies.get(name);
+        return cookies().get(name);
     }
 
     /**
@@ -49,7 +68,22 @@ public class RequestCookies implements Cookies {
      */
     @Override
     public String getOrDefault(String name, String defaultValue) {
-        return cookies.getOrDefault(name, defaultValue);
+        return cookies().getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Get the registry of the cookies, and parse the header, if it has not been parsed yet.
+     * @return the registry of the cookies
+     */
+    private Map<String, String> cookies() {
+        // the header may be parsed twice, if multiple threads ask for the cookies at once, but the results are
+        // equal, and the volatile write publishes the registry only after it has been filled
+        Map<String, String> cookies = this.cookies;
+        if (cookies == null) {
+            cookies = parseHeader(header);
+            this.cookies = cookies;
+        }
+        return cookies;
     }
 
     /**
@@ -58,28 +92,105 @@ public class RequestCookies implements Cookies {
     @Override
     public String toString() {
         return "RequestCookies{" +
-            "cookies=" + cookies +
+            "cookies=" + cookies() +
             '}';
     }
 
     /**
-     * Parse the requested cookies from header value.
+     * Parse the cookie pairs of the header in a single pass. The pairs are separated using semicolons, and the
+     * names are separated from the values using the first equals sign, so the values may contain further equals
+     * signs. The whitespaces around the names and the values, and the quotes around the values are removed.
+     * If a cookie is specified multiple times, the first value is kept.
      * @param header cookies header
-     * @return parsed cookies
+     * @return the registry of the parsed cookies
      */
-    public static Cookies parse(String header) {
-        // declare a map for parsed cookies
+    private static Map<String, String> parseHeader(String header) {
         Map<String, String> cookies = new HashMap<>();
-        // cookies are separated using a semicolon;
-        // split up the header between semicolons
-        for (String cookie : header.split("; ")) {
-            // split the key from the value
-            String[] values = cookie.split("=");
-            // register the cookie
-            cookies.put(values[0], values[1]);
+        int length = header.length();
+        int index = 0;
+
+        while (index < length) {
+            // find the end of the name and the end of the pair
+            int equals = -1;
+            int end = index;
+            for (; end < length; end++) {
+                char c = header.charAt(end);
+                if (c == ';')
+                    break;
+                if (c == '=' && equals < 0)
+                    equals = end;
+            }
+            if (equals < 0)
+                equals = end;
+
+            int nameStart = skipWhitespace(header, index, equals);
+            int nameEnd = trimWhitespace(header, nameStart, equals);
+
+            // the pairs without a name are ignored
+            if (nameStart < nameEnd) {
+                int valueStart = equals < end ? skipWhitespace(header, equals + 1, end) : end;
+                int valueEnd = trimWhitespace(header, valueStart, end);
+
+                // remove the optional quotes surrounding the value
+                if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"' && header.charAt(valueEnd - 1) == '"') {
+                    valueStart++;
+                    valueEnd--;
+                }
+
+                cookies.putIfAbsent(
+                    header.substring(nameStart, nameEnd), header.substring(valueStart, valueEnd)
+                );
+            }
+
+            index = end + 1;
         }
-        // create new cookies
-        return new RequestCookies(cookies);
+
+        return cookies;
+    }
+
+    /**
+     * Skip the whitespaces from the beginning of the range.
+     * @param header cookies header
+     * @param start the offset of the range
+     * @param end the end offset of the range
+     * @return the offset of the first non-whitespace character
+     */
+    private static int skipWhitespace(String header, int start, int end) {
+        while (start < end && isWhitespace(header.charAt(start)))
+            start++;
+        return start;
+    }
+
+    /**
+     * Trim the whitespaces from the end of the range.
+     * @param header cookies header
+     * @param start the offset of the range
+     * @param end the end offset of the range
+     * @return the offset after the last non-whitespace character
+     */
+    private static int trimWhitespace(String header, int start, int end) {
+        while (end > start && isWhitespace(header.charAt(end - 1)))
+            end--;
+        return end;
+    }
+
+    /**
+     * Determine if the character is a whitespace, that may surround the cookie names and values.
+     * @param c the character to check
+     * @return true if the character is a space or a tab
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    /**
+     * Create the registry of the requested cookies from the header value.
+     * The header is only parsed, when a cookie is first requested.
+     * @param header cookies header
+     * @return request cookies
+     */
+    public static Cookies parse(String header) {
+        return new RequestCookies(header);
     }
 
     /**
@@ -87,6 +198,6 @@ public class RequestCookies implements Cookies {
      * @return empty cookies registry
      */
     public static Cookies empty() {
-        return new RequestCookies(new HashMap<>());
+        return new RequestCookies(Collections.emptyMap());
     }
 }
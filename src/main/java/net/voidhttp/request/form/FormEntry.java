@@ -1,11 +1,19 @@
 package net.voidhttp.request.form;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Map;
 
 /**
  * Represents an entry of a multipart form data.
+ * <p>
+ * Small entries are kept in the memory, whilst the entries exceeding the
+ * {@link net.voidhttp.ServerConfig#getMultipartMemoryThreshold()} are written to a temporary file,
+ * that is deleted after the response has been sent.
  */
 public interface FormEntry {
     /**
@@ -21,8 +29,46 @@ public interface FormEntry {
     @NotNull String name();
 
     /**
-     * Get the data of the entry.
+     * Get the name of the uploaded file of the entry.
+     * @return form entry file name, or null if the entry is not a file
+     */
+    @Nullable String filename();
+
+    /**
+     * Get the content type of the entry.
+     * @return form entry content type, or null if it is not specified
+     */
+    @Nullable String contentType();
+
+    /**
+     * Get the size of the entry data in bytes.
+     * @return form entry size
+     */
+    long size();
+
+    /**
+     * Get the data of the entry decoded as text.
      * @return form entry data
      */
     @NotNull String data();
+
+    /**
+     * Get the raw data of the entry. If the entry has been written to a temporary file, the file is read.
+     * @return form entry bytes
+     * @throws IOException error whilst reading the temporary file
+     */
+    byte @NotNull [] bytes() throws IOException;
+
+    /**
+     * Open a stream of the raw data of the entry, without loading a temporary file into the memory.
+     * @return form entry data stream
+     * @throws IOException error whilst opening the temporary file
+     */
+    @NotNull InputStream stream() throws IOException;
+
+    /**
+     * Get the temporary file that the entry data has been written to.
+     * @return form entry file, or null if the entry is kept in the memory
+     */
+    @Nullable Path file();
 }
@@ -0,0 +1,498 @@
+package net.voidhttp.request.form;
+
+import net.voidhttp.ServerConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Represents a streaming parser of the multipart/form-data request content.
+ * <p>
+ * The content is fed to the parser in chunks as it is read from the socket channel. The parser scans the chunks
+ * for the boundary delimiters using the Boyer-Moore-Horspool algorithm, so most of the bytes are skipped without
+ * being compared, and the data of the parts is handed over to the entries as it is found. Only the tail of a chunk,
+ * that may be the beginning of a delimiter, is retained until the next chunk arrives.
+ * <p>
+ * The entries are kept in the memory, until they exceed the {@link ServerConfig#getMultipartMemoryThreshold()},
+ * or the entries of the request together exceed the {@link ServerConfig#getMultipartMemoryLimit()},
+ * after which they are written to temporary files. The files must be deleted by {@link #deleteFiles()},
+ * after the request has been handled.
+ */
+public class MultipartParser {
+    /**
+     * The configuration of the http server.
+     */
+    private final ServerConfig config;
+
+    /**
+     * The delimiter that precedes each part, that is a line break followed by two dashes and the boundary.
+     */
+    private final byte[] delimiter;
+
+    /**
+     * The Boyer-Moore-Horspool shift table of the delimiter, indexed by the value of the byte
+     * that is aligned with the last byte of the delimiter.
+     */
+    private final int[] shifts = new int[256];
+
+    /**
+     * The bytes that have been fed to the parser, but have not been processed yet.
+     */
+    private final byte[] window;
+
+    /**
+     * The amount of bytes in the window.
+     */
+    private int windowSize;
+
+    /**
+     * The current state of the parser.
+     */
+    private State state = State.PREAMBLE;
+
+    /**
+     * The part, that is currently being read.
+     */
+    private Part part;
+
+    /**
+     * The entries of the parts that have been read.
+     */
+    private final List<FormEntry> entries = new ArrayList<>();
+
+    /**
+     * The temporary files, that have been created for the parts exceeding the memory threshold.
+     */
+    private final List<Path> files = new ArrayList<>();
+
+    /**
+     * The total size in bytes of the part headers and the part data, that are kept in the memory.
+     */
+    private long memorySize;
+
+    /**
+     * Initialize the multipart parser.
+     * @param boundary the boundary of the parts, that is specified by the `Content-Type` header
+     * @param config the configuration of the server
+     */
+    public MultipartParser(String boundary, ServerConfig config) {
+        this.config = config;
+        delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+
+        // the window must fit the headers of a part, and a read chunk along with an unfinished delimiter
+        window = new byte[Math.max(config.getContentReadSize(), config.getMaxHeaderSize()) + delimiter.length];
+
+        // the content begins with the delimiter without the leading line break
+        window[0] = '\r';
+        window[1] = '\n';
+        windowSize = 2;
+
+        // the bytes that are not part of the delimiter let the search skip the whole delimiter
+        Arrays.fill(shifts, delimiter.length);
+        for (int i = 0; i < delimiter.length - 1; i++)
+            shifts[delimiter[i] & 0xFF] = delimiter.length - 1 - i;
+    }
+
+    /**
+     * Feed the next chunk of the content to the parser.
+     * @param buffer the buffer of the content bytes
+     * @throws IOException error whilst writing a part to its temporary file
+     */
+    public void feed(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            int length = Math.min(buffer.remaining(), window.length - windowSize);
+            buffer.get(window, windowSize, length);
+            windowSize += length;
+            process();
+        }
+    }
+
+    /**
+     * Process the bytes of the window, as long as the state of the parser can be advanced,
+     * then move the unprocessed bytes to the beginning of the window.
+     * @throws IOException error whilst writing a part to its temporary file
+     */
+    private void process() throws IOException {
+        int position = 0;
+
+        loop:
+        while (true) {
+            switch (state) {
+                // the preamble and the data of the parts last until the next delimiter
+                case PREAMBLE, DATA -> {
+                    int match = indexOf(position);
+                    if (match < 0) {
+                        // keep the tail of the window, that may be the beginning of a delimiter
+                        int safe = Math.max(position, windowSize - delimiter.length + 1);
+                        if (state == State.DATA)
+                            part.write(window, position, safe - position);
+                        position = safe;
+                        break loop;
+                    }
+
+                    if (state == State.DATA) {
+                        part.write(window, position, match - position);
+                        entries.add(part.finish());
+                        part = null;
+                    }
+                    position = match + delimiter.length;
+                    state = State.DELIMITER;
+                }
+                // two dashes after the delimiter indicate the end of the last part
+                case DELIMITER -> {
+                    if (windowSize - position < 2)
+                        break loop;
+                    if (window[position] == '-' && window[position + 1] == '-') {
+                        state = State.EPILOGUE;
+                        continue;
+                    }
+                    state = State.DELIMITER_LINE;
+                }
+                // skip the optional whitespace until the end of the delimiter line
+                case DELIMITER_LINE -> {
+                    int end = indexOf((byte) '\n', position);
+                    if (end < 0) {
+                        if (windowSize - position > config.getMaxHeaderSize())
+                            throw new IllegalStateException("Multipart delimiter line is too long");
+                        break loop;
+                    }
+                    position = end + 1;
+                    state = State.HEADERS;
+                }
+                // the headers of the part last until an empty line
+                case HEADERS -> {
+                    int end = headersEnd(position);
+                    if (end < 0) {
+                        if (windowSize - position > config.getMaxHeaderSize())
+                            throw new IllegalStateException(
+                                "Multipart headers exceeded maximum size of " + config.getMaxHeaderSize() + " bytes"
+                            );
+                        break loop;
+                    }
+                    // the headers are always kept in the memory, so they cannot exceed the limit on their own
+                    memorySize += end - position;
+                    if (memorySize > config.getMultipartMemoryLimit())
+                        throw new IllegalStateException(
+                            "Multipart form exceeded the memory limit of " + config.getMultipartMemoryLimit() + " bytes"
+                        );
+                    part = new Part(parseHeaders(position, end));
+                    position = end;
+                    state = State.DATA;
+                }
+                // the bytes after the last part are ignored
+                case EPILOGUE -> {
+                    position = windowSize;
+                    break loop;
+                }
+            }
+        }
+
+        System.arraycopy(window, position, window, 0, windowSize - position);
+        windowSize -= position;
+    }
+
+    /**
+     * Find the next delimiter in the window using the Boyer-Moore-Horspool algorithm.
+     * @param from the offset to begin the search at
+     * @return the offset of the delimiter, or -1 if the window does not contain a whole delimiter
+     */
+    private int indexOf(int from) {
+        int last = delimiter.length - 1;
+        int offset = from;
+        while (offset + last < windowSize) {
+            int i = last;
+            while (window[offset + i] == delimiter[i]) {
+                if (i-- == 0)
+                    return offset;
+            }
+            offset += shifts[window[offset + last] & 0xFF];
+        }
+        return -1;
+    }
+
+    /**
+     * Find the next occurrence of the byte in the window.
+     * @param value the byte to find
+     * @param from the offset to begin the search at
+     * @return the offset of the byte, or -1 if the window does not contain it
+     */
+    private int indexOf(byte value, int from) {
+        for (int i = from; i < windowSize; i++) {
+            if (window[i] == value)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Find the end of the headers of the part, that is terminated by an empty line.
+     * @param from the offset of the beginning of the headers
+     * @return the offset after the empty line, or -1 if the headers are not finished yet
+     */
+    private int headersEnd(int from) {
+        // the part may not have any headers at all
+        if (windowSize - from >= 2 && window[from] == '\r' && window[from + 1] == '\n')
+            return from + 2;
+
+        for (int i = from; i + 3 < windowSize; i++) {
+            if (window[i] == '\r' && window[i + 1] == '\n' && window[i + 2] == '\r' && window[i + 3] == '\n')
+                return i + 4;
+        }
+        return -1;
+    }
+
+    /**
+     * Parse the header lines of the part.
+     * @param start the offset of the beginning of the headers
+     * @param end the offset after the empty line of the headers
+     * @return the map of the part headers
+     */
+    private Map<String, String> parseHeaders(int start, int end) {
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String text = new String(window, start, end - start, StandardCharsets.UTF_8);
+        for (String line : text.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0)
+                headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+        }
+        return headers;
+    }
+
+    /**
+     * Finish parsing the content, after all the content has been fed to the parser.
+     * @return the parsed multipart form
+     * @throws IllegalStateException if the content has ended before the last part
+     */
+    public MultipartForm finish() {
+        if (state != State.EPILOGUE)
+            throw new IllegalStateException("Multipart content ended before the last boundary");
+        return new RequestMultipartForm(entries);
+    }
+
+    /**
+     * Indicate, whether any of the parts have been written to temporary files.
+     * @return true if there are temporary files to be deleted
+     */
+    public boolean hasFiles() {
+        return !files.isEmpty();
+    }
+
+    /**
+     * Delete the temporary files of the parts, that have exceeded the memory threshold.
+     */
+    public void deleteFiles() {
+        if (part != null)
+            part.close();
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+        }
+        files.clear();
+    }
+
+    /**
+     * Parse the parameters of a header value, such as the `Content-Type` or the `Content-Disposition` headers.
+     * The names of the parameters are lower-cased, and the quotes of the values are removed.
+     * @param header the header value, for example <code>form-data; name="file"; filename="a.txt"</code>
+     * @return the map of the header parameters
+     */
+    public static Map<String, String> parameters(String header) {
+        Map<String, String> parameters = new HashMap<>();
+        int length = header.length();
+        int index = header.indexOf(';');
+
+        while (index >= 0 && index < length) {
+            // read the name of the parameter
+            int nameStart = index + 1;
+            int equals = header.indexOf('=', nameStart);
+            if (equals < 0)
+                break;
+            String name = header.substring(nameStart, equals).trim().toLowerCase();
+
+            // read the value of the parameter, which may be quoted and contain semicolons
+            int valueStart = equals + 1;
+            while (valueStart < length && header.charAt(valueStart) == ' ')
+                valueStart++;
+
+            StringBuilder value = new StringBuilder();
+            int i = valueStart;
+            if (i < length && header.charAt(i) == '"') {
+                for (i++; i < length && header.charAt(i) != '"'; i++) {
+                    char c = header.charAt(i);
+                    if (c == '\\' && i + 1 < length)
+                        c = header.charAt(++i);
+                    value.append(c);
+                }
+                i = header.indexOf(';', i);
+            } else {
+                int end = header.indexOf(';', i);
+                value.append(header, i, end < 0 ? length : end);
+                i = end;
+            }
+
+            parameters.put(name, value.toString().trim());
+            index = i;
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Represents a part of the content, that is currently being read.
+     */
+    private class Part {
+        /**
+         * The headers of the part.
+         */
+        private final Map<String, String> headers;
+
+        /**
+         * The data of the part, whilst it is kept in the memory.
+         */
+        private byte[] data = new byte[256];
+
+        /**
+         * The size of the part data in bytes.
+         */
+        private long size;
+
+        /**
+         * The temporary file of the part, if the part has exceeded the memory threshold.
+         */
+        private Path file;
+
+        /**
+         * The channel of the temporary file.
+         */
+        private FileChannel channel;
+
+        /**
+         * Initialize the part.
+         * @param headers the headers of the part
+         */
+        private Part(Map<String, String> headers) {
+            this.headers = headers;
+        }
+
+        /**
+         * Append the bytes to the data of the part.
+         * @param bytes the array of the bytes
+         * @param offset the offset of the bytes in the array
+         * @param length the amount of bytes to append
+         * @throws IOException error whilst writing the temporary file
+         */
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0)
+                return;
+
+            // move the data to a temporary file, as it does not fit in the memory threshold of the part,
+            // or in the memory limit of the whole form
+            if (channel == null && (
+                size + length > config.getMultipartMemoryThreshold()
+                || memorySize + length > config.getMultipartMemoryLimit()
+            ))
+                spill();
+
+            if (channel != null) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            } else {
+                if (size + length > data.length)
+                    data = Arrays.copyOf(data, (int) Math.max(size + length, data.length * 2L));
+                System.arraycopy(bytes, offset, data, (int) size, length);
+                memorySize += length;
+            }
+            size += length;
+        }
+
+        /**
+         * Create the temporary file of the part, and write the data read so far into it.
+         * @throws IOException error whilst creating the temporary file
+         */
+        private void spill() throws IOException {
+            String directory = config.getMultipartDirectory();
+            file = directory != null
+                ? Files.createTempFile(Path.of(directory), "voidhttp-", ".part")
+                : Files.createTempFile("voidhttp-", ".part");
+            files.add(file);
+
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            ByteBuffer buffer = ByteBuffer.wrap(data, 0, (int) size);
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            memorySize -= size;
+            data = null;
+        }
+
+        /**
+         * Finish reading the part, and create the form entry of it.
+         * @return the form entry of the part
+         * @throws IOException error whilst closing the temporary file
+         */
+        private FormEntry finish() throws IOException {
+            if (channel != null)
+                channel.close();
+
+            Map<String, String> disposition = parameters(headers.getOrDefault("Content-Disposition", ""));
+            return new RequestFormEntry(
+                headers, disposition.getOrDefault("name", ""), disposition.get("filename"),
+                headers.get("Content-Type"), file == null ? Arrays.copyOf(data, (int) size) : null, file, size
+            );
+        }
+
+        /**
+         * Close the temporary file of the unfinished part, ignoring the errors.
+         */
+        private void close() {
+            try {
+                if (channel != null)
+                    channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Represents the current state of the multipart parser.
+     */
+    private enum State {
+        /**
+         * `PREAMBLE` indicates, that the parser is skipping the bytes before the first delimiter.
+         */
+        PREAMBLE,
+
+        /**
+         * `DELIMITER` indicates, that the parser has found a delimiter, and it checks if the content has ended.
+         */
+        DELIMITER,
+
+        /**
+         * `DELIMITER_LINE` indicates, that the parser is skipping the rest of the delimiter line.
+         */
+        DELIMITER_LINE,
+
+        /**
+         * `HEADERS` indicates, that the parser is reading the headers of the next part.
+         */
+        HEADERS,
+
+        /**
+         * `DATA` indicates, that the parser is reading the data of the part, until the next delimiter.
+         */
+        DATA,
+
+        /**
+         * `EPILOGUE` indicates, that the last part has ended, and the rest of the content is ignored.
+         */
+        EPILOGUE
+    }
+}
@@ -3,8 +3,16 @@ package net.voidhttp.request.form;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
 
 /**
  * Represents an implementation for an entry of a multipart form data.
@@ -18,14 +26,35 @@ public class RequestFormEntry implements FormEntry {
     private final Map<String, String> headers;
 
     /**
-     * The data of the entry.
+     * The name attribute of the entry.
      */
-    private final String data;
+    private final String name;
 
     /**
-     * The name attribute of the entry.
+     * The filename attribute of the entry.
      */
-    private final String name;
+    private final String filename;
+
+    /**
+     * The content type of the entry.
+     */
+    private final String contentType;
+
+    /**
+     * The data of the entry, if the entry is kept in the memory.
+     */
+    @ToString.Exclude
+    private final byte[] bytes;
+
+    /**
+     * The temporary file of the entry data, if the entry exceeded the memory threshold.
+     */
+    private final Path file;
+
+    /**
+     * The size of the entry data in bytes.
+     */
+    private final long size;
 
     /**
      * Get the headers of the entry.
@@ -36,15 +65,6 @@ public class RequestFormEntry implements FormEntry {
         return headers;
     }
 
-    /**
-     * Get the data of the entry.
-     * @return form entry data
-     */
-    @Override
-    public @NotNull String data() {
-        return data;
-    }
-
     /**
      * Get the name of the entry.
      * @return form entry name
@@ -55,65 +75,71 @@ public class RequestFormEntry implements FormEntry {
     }
 
     /**
-     * Parse the multipart form data from the given lines.
-     * @param lines multipart form data lines
-     * @return parsed multipart form data
+     * Get the name of the uploaded file of the entry.
+     * @return form entry file name, or null if the entry is not a file
      */
-    public static RequestFormEntry parse(List<String> lines) {
-        Map<String, String> headers = new HashMap<>();
-        StringBuilder data = new StringBuilder();
-
-        boolean dataStarted = false;
-        String name = "";
-
-        // read the remaining lines of the multipart form entry
-        Iterator<String> iterator = lines.iterator();
-        while (iterator.hasNext()) {
-            String line = iterator.next();
-
-            // handle headers whilst the entry data has not started
-            if (!dataStarted) {
-                // an empty line indicates, that the entry data has started
-                if (line.isEmpty()) {
-                    dataStarted = true;
-                    continue;
-                }
-
-                // parse the next form entry header
-                String[] header = line.split(":", 2);
-
-                String key = header[0];
-                String value = header[1].trim();
-
-                headers.put(key, value);
+    @Override
+    public @Nullable String filename() {
+        return filename;
+    }
 
-                // handle form entry metadata
-                if (!key.equals("Content-Disposition"))
-                    continue;
+    /**
+     * Get the content type of the entry.
+     * @return form entry content type, or null if it is not specified
+     */
+    @Override
+    public @Nullable String contentType() {
+        return contentType;
+    }
 
-                // resolve the "name" attribute of the form entry
-                String[] disposition = value.split(";");
-                for (String pair : disposition) {
-                    String[] entry = pair.split("=", 2);
-                    if (entry.length != 2)
-                        continue;
+    /**
+     * Get the size of the entry data in bytes.
+     * @return form entry size
+     */
+    @Override
+    public long size() {
+        return size;
+    }
 
-                    String entryKey = entry[0].trim();
-                    String entryValue = entry[1].trim();
-                    if (entryKey.equals("name"))
-                        name = entryValue.substring(1, entryValue.length() - 1);
-                }
+    /**
+     * Get the data of the entry decoded as text.
+     * @return form entry data
+     */
+    @Override
+    public @NotNull String data() {
+        try {
+            return new String(bytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-            }
+    /**
+     * Get the raw data of the entry. If the entry has been written to a temporary file, the file is read.
+     * @return form entry bytes
+     * @throws IOException error whilst reading the temporary file
+     */
+    @Override
+    public byte @NotNull [] bytes() throws IOException {
+        return file != null ? Files.readAllBytes(file) : bytes;
+    }
 
-            // parse the data of the entry
-            else {
-                data.append(line);
-                if (iterator.hasNext())
-                    data.append('\n');
-            }
-        }
+    /**
+     * Open a stream of the raw data of the entry, without loading a temporary file into the memory.
+     * @return form entry data stream
+     * @throws IOException error whilst opening the temporary file
+     */
+    @Override
+    public @NotNull InputStream stream() throws IOException {
+        return file != null ? Files.newInputStream(file) : new ByteArrayInputStream(bytes);
+    }
 
-        return new RequestFormEntry(headers, data.toString(), name);
+    /**
+     * Get the temporary file that the entry data has been written to.
+     * @return form entry file, or null if the entry is kept in the memory
+     */
+    @Override
+    public @Nullable Path file() {
+        return file;
     }
 }
@@ -3,6 +3,9 @@ package net.voidhttp.request.parameter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Represents a manager of HTTP request parameters.
  */
@@ -29,4 +32,17 @@ public interface Parameters {
      * @return parameter value
      */
     @NotNull String getOrDefault(@NotNull String key, @NotNull String defaultValue);
+
+    /**
+     * Get all the values of the given parameter, in the order they were specified.
+     * @param key parameter key
+     * @return parameter values, or an empty list if the parameter is missing
+     */
+    @NotNull List<String> getAll(@NotNull String key);
+
+    /**
+     * Get the map of the parameters. If a parameter is specified multiple times, the first value is kept.
+     * @return parameter map
+     */
+    @NotNull Map<String, String> getParameters();
 }
@@ -1,28 +1,80 @@
 package net.voidhttp.request.parameter;
 
-import lombok.ToString;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
- * Represents a manager of HTTP request parameters.
+ * Represents a manager of HTTP request parameters, that is backed by the raw bytes of the request target.
+ * <p>
+ * The query string is scanned once, only recording the offsets of the parameter keys and values. The keys and
+ * the values are only percent-decoded when they are requested, so the parameters that are never read
+ * are never allocated. A key may be specified multiple times, all of its values are retained.
  */
-@ToString
 public class RequestParameters implements Parameters {
     /**
-     * The registry of the request url parameters.
+     * The amount of integers used to store the offsets of a single parameter.
      */
-    private final Map<String, String> parameters;
+    private static final int STRIDE = 4;
+
+    /**
+     * The empty array of offsets, that is shared by the empty registries.
+     */
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * The raw bytes of the query string.
+     */
+    private final byte[] data;
+
+    /**
+     * The key start, key end, value start and value end offsets of each parameter.
+     * The value start is -1, if the parameter does not have a value.
+     */
+    private final int[] offsets;
+
+    /**
+     * The cache of the decoded parameter keys.
+     */
+    private final String[] keys;
+
+    /**
+     * The cache of the decoded parameter values.
+     */
+    private final String[] values;
+
+    /**
+     * Initialize request parameters from already decoded keys and values.
+     * @param parameters url parameters, a null value indicates a parameter without a value
+     */
+    public RequestParameters(@NotNull Map<String, String> parameters) {
+        this(new byte[0], new int[parameters.size() * STRIDE]);
+        // the decoded keys and values are cached up front, so the offsets only record the missing values
+        int index = 0;
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            keys[index] = entry.getKey();
+            values[index] = entry.getValue();
+            offsets[index * STRIDE + 2] = entry.getValue() != null ? 0 : -1;
+            index++;
+        }
+    }
 
     /**
      * Initialize request parameters.
-     * @param parameters url parameters
+     * @param data the raw bytes of the query string
+     * @param offsets the offsets of the parameter keys and values
      */
-    public RequestParameters(Map<String, String> parameters) {
-        this.parameters = parameters;
+    private RequestParameters(byte[] data, int[] offsets) {
+        this.data = data;
+        this.offsets = offsets;
+        keys = new String[offsets.length / STRIDE];
+        values = new String[offsets.length / STRIDE];
     }
 
     /**
@@ -32,17 +84,19 @@ public class RequestParameters implements Parameters {
      */
     @Override
     public boolean has(@NotNull String key) {
-        return parameters.containsKey(key);
+        return indexOf(key, 0) >= 0;
     }
 
     /**
-     * Get the value of the given parameter.
+     * Get the value of the given parameter. If the parameter is specified multiple times,
+     * the first value is returned.
      * @param key parameter key
      * @return parameter value
      */
     @Override
     public @Nullable String get(@NotNull String key) {
-        return parameters.get(key);
+        int index = indexOf(key, 0);
+        return index >= 0 ? value(index) : null;
     }
 
     /**
@@ -54,27 +108,224 @@ public class RequestParameters implements Parameters {
      */
     @Override
     public @NotNull String getOrDefault(@NotNull String key, @NotNull String defaultValue) {
-        return parameters.getOrDefault(key, defaultValue);
+        String value = get(key);
+        return value != null ? value : defaultValue;
     }
 
     /**
-     * Parse the request url parameters.
-     * @param url request url
+     * Get all the values of the given parameter, in the order they were specified.
+     * @param key parameter key
+     * @return parameter values, or an empty list if the parameter is missing
+     */
+    @Override
+    public @NotNull List<String> getAll(@NotNull String key) {
+        List<String> result = new ArrayList<>();
+        for (int index = indexOf(key, 0); index >= 0; index = indexOf(key, index + 1))
+            result.add(value(index));
+        return result;
+    }
+
+    /**
+     * Get the map of the parameters. If a parameter is specified multiple times, the first value is kept.
+     * @return parameter map
+     */
+    @Override
+    public @NotNull Map<String, String> getParameters() {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        // the first value is kept, even if it is missing
+        for (int i = 0; i < keys.length; i++) {
+            String key = key(i);
+            if (!parameters.containsKey(key))
+                parameters.put(key, value(i));
+        }
+        return parameters;
+    }
+
+    /**
+     * Find the index of the parameter with the given key.
+     * @param key parameter key
+     * @param from the index to begin the search at
+     * @return the index of the parameter, or -1 if it is missing
+     */
+    private int indexOf(String key, int from) {
+        for (int i = from; i < keys.length; i++) {
+            if (matches(i, key))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Determine if the key of the parameter at the specified index equals the given key.
+     * The raw bytes are compared directly, unless the key of the parameter is encoded.
+     * @param index parameter index
+     * @param key parameter key
+     * @return true if the key matches
+     */
+    private boolean matches(int index, String key) {
+        if (keys[index] != null)
+            return keys[index].equals(key);
+
+        int start = offsets[index * STRIDE];
+        int end = offsets[index * STRIDE + 1];
+        if (isEncoded(start, end))
+            return key(index).equals(key);
+
+        // compare the raw ASCII key with the key character by character
+        int length = key.length();
+        if (end - start != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if ((data[start + i] & 0xFF) != key.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determine if the specified range needs to be decoded, because it contains encoded or non-ASCII bytes.
+     * @param start the offset of the range
+     * @param end the end offset of the range
+     * @return true if the range is encoded
+     */
+    private boolean isEncoded(int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            if (b == '%' || b == '+' || b < 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the decoded key of the parameter at the specified index.
+     * @param index parameter index
+     * @return parameter key
+     */
+    private String key(int index) {
+        String key = keys[index];
+        if (key == null) {
+            key = decode(data, offsets[index * STRIDE], offsets[index * STRIDE + 1]);
+            keys[index] = key;
+        }
+        return key;
+    }
+
+    /**
+     * Get the decoded value of the parameter at the specified index.
+     * @param index parameter index
+     * @return parameter value, or null if the parameter does not have a value
+     */
+    private String value(int index) {
+        int start = offsets[index * STRIDE + 2];
+        if (start < 0)
+            return null;
+
+        String value = values[index];
+        if (value == null) {
+            value = decode(data, start, offsets[index * STRIDE + 3]);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Decode the percent-encoded UTF-8 bytes of the specified range. A plus sign is decoded as a space,
+     * and the malformed percent escapes are kept as they are.
+     * @param data the raw bytes
+     * @param start the offset of the range
+     * @param end the end offset of the range
+     * @return the decoded string
+     */
+    public static String decode(byte[] data, int start, int end) {
+        // find the first byte that has to be decoded, most of the values do not have any
+        int first = start;
+        while (first < end && data[first] != '%' && data[first] != '+')
+            first++;
+        if (first == end)
+            return new String(data, start, end - start, StandardCharsets.UTF_8);
+
+        byte[] decoded = new byte[end - start];
+        int length = first - start;
+        System.arraycopy(data, start, decoded, 0, length);
+
+        for (int i = first; i < end; i++) {
+            byte b = data[i];
+            if (b == '+')
+                b = ' ';
+            else if (b == '%' && i + 2 < end && hex(data[i + 1]) >= 0 && hex(data[i + 2]) >= 0) {
+                b = (byte) (hex(data[i + 1]) << 4 | hex(data[i + 2]));
+                i += 2;
+            }
+            decoded[length++] = b;
+        }
+
+        return new String(decoded, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the value of the hexadecimal digit.
+     * @param b the digit character
+     * @return the value of the digit, or -1 if the character is not a hexadecimal digit
+     */
+    private static int hex(byte b) {
+        if (b >= '0' && b <= '9')
+            return b - '0';
+        if (b >= 'a' && b <= 'f')
+            return b - 'a' + 10;
+        if (b >= 'A' && b <= 'F')
+            return b - 'A' + 10;
+        return -1;
+    }
+
+    /**
+     * Parse the request url parameters from the specified range of the raw bytes, in a single pass.
+     * The bytes are not copied, so they must not be modified afterwards.
+     * @param data the raw bytes of the request target
+     * @param start the offset of the query string, after the question mark
+     * @param end the end offset of the query string
      * @return parsed parameters
      */
-    public static Parameters parse(String url) {
-        // declare a map for parsed parameters
-        Map<String, String> parameters = new HashMap<>();
-        // parameters are separated using a ampersand;
-        // split up the header between ampersands
-        for (String parameter : url.split("&")) {
-            // split the key from the value
-            String[] values = parameter.split("=");
-            // register the parameter
-            parameters.put(values[0], values.length > 1 ? values[1] : null);
+    public static @NotNull Parameters parse(byte[] data, int start, int end) {
+        int[] offsets = new int[8 * STRIDE];
+        int count = 0;
+
+        // parameters are separated using ampersands, and the keys are separated from the values
+        // using the first equals sign, so the values may contain further equals signs
+        int pairStart = start;
+        int equals = -1;
+        for (int i = start; i <= end; i++) {
+            byte b = i < end ? data[i] : (byte) '&';
+            if (b == '=' && equals < 0)
+                equals = i;
+            else if (b == '&') {
+                // skip the empty pairs
+                if (i > pairStart) {
+                    if ((count + 1) * STRIDE > offsets.length)
+                        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+
+                    int index = count++ * STRIDE;
+                    offsets[index] = pairStart;
+                    offsets[index + 1] = equals >= 0 ? equals : i;
+                    offsets[index + 2] = equals >= 0 ? equals + 1 : -1;
+                    offsets[index + 3] = i;
+                }
+                pairStart = i + 1;
+                equals = -1;
+            }
         }
-        // create new parameters
-        return new RequestParameters(parameters);
+
+        return new RequestParameters(data, Arrays.copyOf(offsets, count * STRIDE));
+    }
+
+    /**
+     * Parse the request url parameters.
+     * @param url the query string of the request url
+     * @return parsed parameters
+     */
+    public static @NotNull Parameters parse(@NotNull String url) {
+        byte[] data = url.getBytes(StandardCharsets.UTF_8);
+        return parse(data, 0, data.length);
     }
 
     /**
@@ -82,6 +333,16 @@ public class RequestParameters implements Parameters {
      * @return empty parameters registry
      */
     public static @NotNull Parameters empty() {
-        return new RequestParameters(new HashMap<>());
+        return new RequestParameters(new byte[0], EMPTY);
+    }
+
+    /**
+     * Debug the request parameters.
+     */
+    @Override
+    public String toString() {
+        return "RequestParameters{" +
+            "parameters=" + getParameters() +
+            '}';
     }
 }
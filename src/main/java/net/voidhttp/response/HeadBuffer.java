@@ -0,0 +1,122 @@
+package net.voidhttp.response;
+
+import net.voidhttp.BufferPool;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Represents a writer of the status line and the headers of an HTTP response,
+ * that encodes the response head directly into a pooled direct buffer.
+ * <p>
+ * The buffer is grown using the pool, if the head does not fit into it. After the head has been written,
+ * the buffer is handed over to the connection, that returns it to the pool once it has been sent.
+ */
+public class HeadBuffer {
+    /**
+     * The initial size in bytes of the head buffer, that fits most of the response heads.
+     */
+    private static final int INITIAL_SIZE = 1024;
+
+    /**
+     * The line terminator of the response head.
+     */
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    /**
+     * The separator of the header names and values.
+     */
+    private static final byte[] SEPARATOR = { ':', ' ' };
+
+    /**
+     * The pool of the buffers that the head is encoded into.
+     */
+    private final BufferPool bufferPool;
+
+    /**
+     * The buffer that the head is being encoded into.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Initialize the head buffer.
+     * @param bufferPool the pool of the buffers to be used
+     */
+    public HeadBuffer(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        buffer = bufferPool.acquire(INITIAL_SIZE);
+    }
+
+    /**
+     * Append the specified raw bytes to the head.
+     * @param bytes the bytes to append
+     * @return the head buffer instance
+     */
+    public HeadBuffer put(byte[] bytes) {
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+        return this;
+    }
+
+    /**
+     * Append the specified text to the head. ASCII text is encoded without creating a byte array.
+     * @param text the text to append
+     * @return the head buffer instance
+     */
+    public HeadBuffer put(String text) {
+        int length = text.length();
+        ensureRemaining(length);
+        int start = buffer.position();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            // fall back to the charset encoder, if the text is not plain ASCII
+            if (c >= 0x80) {
+                buffer.position(start);
+                return put(text.getBytes(StandardCharsets.UTF_8));
+            }
+            buffer.put((byte) c);
+        }
+        return this;
+    }
+
+    /**
+     * Append a header line to the head.
+     * @param key the header name
+     * @param value the header value
+     * @return the head buffer instance
+     */
+    public HeadBuffer header(String key, String value) {
+        return put(key).put(SEPARATOR).put(value).crlf();
+    }
+
+    /**
+     * Terminate the current line of the head.
+     * @return the head buffer instance
+     */
+    public HeadBuffer crlf() {
+        return put(CRLF);
+    }
+
+    /**
+     * Finish writing the head, and retrieve the buffer that is ready to be written to the socket channel.
+     * @return the buffer of the encoded head
+     */
+    public ByteBuffer finish() {
+        return buffer.flip();
+    }
+
+    /**
+     * Make sure that the specified amount of bytes fits into the buffer.
+     * Replace the buffer with a larger pooled one, if it is too small.
+     * @param length the amount of bytes to be written
+     */
+    private void ensureRemaining(int length) {
+        if (buffer.remaining() >= length)
+            return;
+
+        ByteBuffer grown = bufferPool.acquire(Math.max(buffer.capacity() * 2, buffer.position() + length));
+        grown.put(buffer.flip());
+        bufferPool.release(buffer);
+        buffer = grown;
+    }
+}
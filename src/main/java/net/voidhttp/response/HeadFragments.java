@@ -0,0 +1,98 @@
+package net.voidhttp.response;
+
+import dev.inventex.octa.data.primitive.Tuple;
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Represents a cache of the pre-encoded fragments of the response heads, that are the same for most responses.
+ * <p>
+ * The status lines of the common status codes and the server header are encoded once, whilst the date header
+ * is encoded at most once per second. The fragments are spliced into the response heads as they are.
+ */
+@UtilityClass
+public class HeadFragments {
+    /**
+     * The encoded header that identifies the server provider.
+     */
+    public final byte[] SERVER_HEADER = encode("Server: VoidHttp 1.0\r\n");
+
+    /**
+     * The HTTP date format, that is used by the date header.
+     */
+    private final DateTimeFormatter DATE_FORMAT = DateTimeFormatter
+        .ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+        .withZone(ZoneOffset.UTC);
+
+    /**
+     * The common status codes and their reason phrases.
+     */
+    private final int[] COMMON_CODES = { 200, 204, 301, 304, 400, 404, 500 };
+
+    /**
+     * The pre-encoded status lines of the common status codes.
+     */
+    private final byte[][] COMMON_STATUS_LINES = {
+        encode("HTTP/1.1 200 OK\r\n"),
+        encode("HTTP/1.1 204 No Content\r\n"),
+        encode("HTTP/1.1 301 Moved Permanently\r\n"),
+        encode("HTTP/1.1 304 Not Modified\r\n"),
+        encode("HTTP/1.1 400 Bad Request\r\n"),
+        encode("HTTP/1.1 404 Not Found\r\n"),
+        encode("HTTP/1.1 500 Internal Server Error\r\n")
+    };
+
+    /**
+     * The epoch second of the cached date header, and the encoded date header of that second.
+     */
+    private volatile Tuple<Long, byte[]> dateHeader = new Tuple<>(-1L, null);
+
+    /**
+     * Get the encoded status line of the response.
+     * The status lines of the common status codes are not encoded again, unless a custom message is specified.
+     * @param code the response status code
+     * @param message the response status message
+     * @return the encoded status line, including the line terminator
+     */
+    public byte[] statusLine(int code, String message) {
+        if (message == null || message.isEmpty()) {
+            for (int i = 0; i < COMMON_CODES.length; i++) {
+                if (COMMON_CODES[i] == code)
+                    return COMMON_STATUS_LINES[i];
+            }
+            message = "";
+        }
+        return "HTTP/1.1 %d %s\r\n".formatted(code, message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the encoded date header of the current second.
+     * The header is only encoded again, if the second has elapsed since the previous call.
+     * @return the encoded date header, including the line terminator
+     */
+    public byte[] dateHeader() {
+        long second = System.currentTimeMillis() / 1000;
+        Tuple<Long, byte[]> cached = dateHeader;
+        if (cached.getFirst() == second)
+            return cached.getSecond();
+
+        // multiple threads may update the header at the same time, but they encode the same value
+        byte[] header = encode("Date: " + DATE_FORMAT.format(Instant.ofEpochSecond(second)) + "\r\n");
+        dateHeader = new Tuple<>(second, header);
+        return header;
+    }
+
+    /**
+     * Encode the specified ASCII text of the response head.
+     * @param text the text to encode
+     * @return the encoded text
+     */
+    private byte[] encode(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
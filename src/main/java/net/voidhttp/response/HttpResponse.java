@@ -3,11 +3,16 @@ package net.voidhttp.response;
 import com.google.common.io.ByteStreams;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import dev.inventex.octa.concurrent.future.Future;
 import lombok.Getter;
+import lombok.Setter;
+import net.voidhttp.HttpConnection;
 import net.voidhttp.HttpServer;
 import net.voidhttp.controller.dto.Dto;
+import net.voidhttp.header.HeaderNames;
 import net.voidhttp.header.Headers;
 import net.voidhttp.header.HttpHeaders;
+import net.voidhttp.request.BodyStream;
 import net.voidhttp.response.cookie.Cookies;
 import net.voidhttp.response.cookie.ResponseCookies;
 import net.voidhttp.util.asset.Asset;
@@ -17,13 +22,8 @@ import net.voidhttp.util.json.JsonBuilder;
 
 import java.io.*;
 import java.nio.ByteBuffer;
-import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
 
 /**
  * Represents an HTTP server response to a client HTTP request.
@@ -41,9 +41,9 @@ public class HttpResponse implements Response {
     private final HttpServer server;
 
     /**
-     * The requesting client socket channel.
+     * The requesting client connection.
      */
-    private final AsynchronousSocketChannel channel;
+    private final HttpConnection connection;
 
     /**
      * The registry of the response headers.
@@ -65,14 +65,55 @@ public class HttpResponse implements Response {
      */
     private String message = "";
 
+    /**
+     * The indication, whether the client asked the connection to be kept alive after the response.
+     */
+    @Setter
+    private boolean keepAlive;
+
+    /**
+     * The streamed content of the request, that must be consumed before the connection can be reused.
+     */
+    @Setter
+    private BodyStream bodyStream;
+
+    /**
+     * The HTTP protocol version of the request, that determines whether the client supports chunked responses.
+     */
+    @Setter
+    private String version;
+
+    /**
+     * The indication, whether the response has already been sent.
+     */
+    private boolean sent;
+
+    /**
+     * The stream of the response body, if the response is written in chunks.
+     */
+    private volatile ResponseStream responseStream;
+
+    /**
+     * The sequence number of the request on the connection, that determines the order of the response.
+     */
+    private final int sequence;
+
+    /**
+     * The future that is completed, when the whole response has been written to the client,
+     * or failed, if it could not be written.
+     */
+    @Getter
+    private final Future<Void> completion = new Future<>();
+
     /**
      * Initialize the HTTP response.
      * @param server the server that handles the http response
-     * @param channel the requesting client socket channel
+     * @param connection the requesting client connection
      */
-    public HttpResponse(HttpServer server, AsynchronousSocketChannel channel) {
+    public HttpResponse(HttpServer server, HttpConnection connection) {
         this.server = server;
-        this.channel = channel;
+        this.connection = connection;
+        this.sequence = connection.getRequestCount();
 
         headers = HttpHeaders.empty();
         cookies = new ResponseCookies();
@@ -82,117 +123,219 @@ public class HttpResponse implements Response {
      * Response to the request with raw bytes and a content type given.
      * @param bytes response bytes
      * @param type content type
+     * @return future that will be completed when the response has been written
      */
     @Override
-    public void send(byte[] bytes, MIMEType type) throws IOException {
-        // create data output writer
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        PrintWriter writer = new PrintWriter(stream);
-        // write the response status
-        writer.println("HTTP/1.1 " + code + " " + message);
+    public Future<Void> send(byte[] bytes, MIMEType type) throws IOException {
+        markSent();
+        boolean persistent = isPersistent();
+
         // write the default header values if they are missing
-        if (server.getConfig().isServerNameDisplay())
-            headers.addIfAbsent("Server", "VoidHttp 1.0");
-        headers.addIfAbsent("Date", currentDateTime());
-        headers.addIfAbsent("Content-type", type);
-        headers.addIfAbsent("Content-length", bytes.length);
-        // write the response headers
-        cookies.write(headers);
-        headers.write(writer);
-        // write a blank line after the end of headers which
-        // determines that the response body has begun
-        writer.println();
-        writer.flush();
-        // write the body of the response
-        stream.write(bytes);
-
-        byte[] data = stream.toByteArray();
-
-        // write the response to the client using the specified size of chunks
-        int bytesToWrite = data.length;
-        int bytesWritten = 0;
-
-        while(bytesWritten < bytesToWrite) {
-            int bufferSize = Math.min(bytesToWrite - bytesWritten, server.getConfig().getContentWriteSize());
-            ByteBuffer buffer = ByteBuffer.wrap(data, bytesWritten, bufferSize);
-            // there is no need to wait for the write to finish, the write order is guaranteed by TCP
-            channel.write(buffer);
-            bytesWritten += bufferSize;
+        headers.addIfAbsent(HeaderNames.CONTENT_TYPE, type);
+        headers.addIfAbsent(HeaderNames.CONTENT_LENGTH, bytes.length);
+
+        // queue the response to be written in the order of the requests, the head and the body are
+        // written together, without copying the body, then either wait for the next request or close the connection
+        Future<Void> future = connection.write(sequence, encodeHead(persistent), bytes, persistent);
+        future.then(completion::complete).except(completion::fail);
+        return future;
+    }
+
+    /**
+     * Respond to the request with a body, that is written in chunks as the handler produces it.
+     * The response head is queued right away, and the returned stream must be ended after the last chunk.
+     * @param type content type
+     * @return the stream of the response body
+     * @throws IOException if the response has already been sent
+     */
+    @Override
+    public ResponseStream stream(MIMEType type) throws IOException {
+        markSent();
+
+        // the body is chunked, unless the handler has specified the size of the body, or the client is an
+        // HTTP/1.0 client, that does not understand the chunked encoding, in which case the end of the body
+        // is indicated by closing the connection
+        boolean sized = headers.has(HeaderNames.CONTENT_LENGTH);
+        boolean chunked = !sized && !"HTTP/1.0".equals(version);
+        boolean persistent = (sized || chunked) && isPersistent();
+
+        headers.addIfAbsent(HeaderNames.CONTENT_TYPE, type);
+        if (chunked)
+            headers.add(HeaderNames.TRANSFER_ENCODING, "chunked");
+
+        responseStream = new ResponseStream(
+            connection, sequence, encodeHead(persistent), chunked, persistent, completion
+        );
+        return responseStream;
+    }
+
+    /**
+     * Respond to the request with a body, that is written in chunks as the handler produces it.
+     * @return the stream of the response body
+     * @throws IOException if the response has already been sent
+     */
+    @Override
+    public ResponseStream stream() throws IOException {
+        return stream(MIMEType.HTML);
+    }
+
+    /**
+     * Make sure not to write a second response to the connection.
+     * @throws IOException if the response has already been sent
+     */
+    private synchronized void markSent() throws IOException {
+        if (sent)
+            throw new IOException("Response has already been sent");
+        sent = true;
+    }
+
+    /**
+     * Indicate, whether the handlers have begun sending the response.
+     * @return true if the response has already been sent
+     */
+    public synchronized boolean isSent() {
+        return sent;
+    }
+
+    /**
+     * Indicate, whether the handlers have not finished producing the response. This is the case, if the response
+     * has not been sent yet, or its body is streamed, but the stream has not been ended.
+     * @return true if the response is still pending
+     */
+    public synchronized boolean isPending() {
+        return !sent || isStreaming();
+    }
+
+    /**
+     * Indicate, whether the body of the response is being streamed, and the stream has not been ended yet.
+     * @return true if the response stream is open
+     */
+    public boolean isStreaming() {
+        ResponseStream stream = responseStream;
+        return stream != null && !stream.isEnded();
+    }
+
+    /**
+     * Abort the response, if the handlers have not finished producing it, so it cannot be sent afterwards.
+     * The subsequent responses of the connection cannot be written before it, so the connection is closed.
+     * @param cause the reason of the abortion, that the response fails with
+     * @return true if the response has been aborted, false if it has already been completed
+     */
+    public boolean abort(Throwable cause) {
+        boolean started;
+        synchronized (this) {
+            started = sent;
+            sent = true;
+        }
+
+        // the body of a started response can only be aborted, if it is streamed
+        if (started) {
+            ResponseStream stream = responseStream;
+            return stream != null && stream.abort(cause);
         }
 
-        // close the connection
-        channel.close();
-        // TODO implement keep-alive connections
+        completion.fail(cause);
+        connection.close();
+        return true;
     }
 
     /**
-     * Get the current date according to the HTTP date format.
-     * @return current date time RFC 1123 representation
+     * Determine if the connection should be kept alive after the response.
+     * The handler may explicitly ask the connection to be closed, and the connection cannot be reused,
+     * if the handler did not consume the streamed content of the request.
+     * @return true if the connection should be kept alive
      */
-    private String currentDateTime() {
-        // Create a Date object representing the current date and time
-        Date currentDate = new Date();
-        // Create a SimpleDateFormat with the desired format and locale
-        SimpleDateFormat dateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
-        // Set the time zone to GMT (Greenwich Mean Time)
-        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
-        // Format the date as a string
-        return dateFormat.format(currentDate);
+    private boolean isPersistent() {
+        return keepAlive && connection.canKeepAlive(sequence)
+            && !"close".equalsIgnoreCase(headers.get(HeaderNames.CONNECTION))
+            && (bodyStream == null || bodyStream.isFinished());
+    }
+
+    /**
+     * Encode the response status and the headers into a pooled buffer.
+     * @param persistent true if the connection should be kept alive after the response
+     * @return the buffer of the encoded response head
+     */
+    private ByteBuffer encodeHead(boolean persistent) {
+        // write the default header values if they are missing
+        // the server and date headers are spliced into the head pre-encoded, unless they are overridden
+        boolean serverHeader = server.getConfig().isServerNameDisplay() && !headers.has(HeaderNames.SERVER);
+        boolean dateHeader = !headers.has(HeaderNames.DATE);
+        headers.add(HeaderNames.CONNECTION, persistent ? "keep-alive" : "close");
+        cookies.write(headers);
+
+        HeadBuffer head = new HeadBuffer(connection.getBufferPool());
+        head.put(HeadFragments.statusLine(code, message));
+        if (serverHeader)
+            head.put(HeadFragments.SERVER_HEADER);
+        if (dateHeader)
+            head.put(HeadFragments.dateHeader());
+        headers.forEach(head::header);
+        // write a blank line after the end of headers which
+        // determines that the response body has begun
+        head.crlf();
+        return head.finish();
     }
 
     /**
      * Response to the request with raw bytes.
      * @param bytes response bytes
+     * @return future that will be completed when the response has been written
      */
     @Override
-    public void send(byte[] bytes) throws IOException {
-        send(bytes, MIMEType.BINARY);
+    public Future<Void> send(byte[] bytes) throws IOException {
+        return send(bytes, MIMEType.BINARY);
     }
 
     /**
      * Respond to the request with a raw text data and a content type given.
      * @param data response text
      * @param type content type
+     * @return future that will be completed when the response has been written
      */
     @Override
-    public void send(String data, MIMEType type) throws IOException {
-        send(data.getBytes(StandardCharsets.UTF_8), type);
+    public Future<Void> send(String data, MIMEType type) throws IOException {
+        return send(data.getBytes(StandardCharsets.UTF_8), type);
     }
 
     /**
      * Respond to the request with a raw text data.
      * @param data response text
+     * @return future that will be completed when the response has been written
      */
     @Override
-    public void send(String data) throws IOException {
-        send(data, MIMEType.HTML);
+    public Future<Void> send(String data) throws IOException {
+        return send(data, MIMEType.HTML);
     }
 
     /**
      * Respond to the request with a json data.
      * @param json response json
+     * @return future that will be completed when the response has been written
      */
     @Override
-    public void send(JsonObject json) throws IOException {
-        send(json.toString(), MIMEType.JSON);
+    public Future<Void> send(JsonObject json) throws IOException {
+        return send(json.toString(), MIMEType.JSON);
     }
 
     /**
      * Respond to the request with a json data.
      * @param builder response json builder
+     * @return future that will be completed when the response has been written
      */
     @Override
-    public void send(JsonBuilder builder) throws IOException {
-        send(builder.build().toString(), MIMEType.JSON);
+    public Future<Void> send(JsonBuilder builder) throws IOException {
+        return send(builder.build().toString(), MIMEType.JSON);
     }
 
     /**
      * Respond to the request with a file content.
      * @param file target file
+     * @return future that will be completed when the response has been written
      * @throws IOException error whilst sending
      */
     @Override
-    public void sendFile(File file) throws IOException {
+    public Future<Void> sendFile(File file) throws IOException {
         // get the input stream of the asset file
         try (InputStream stream = Files.newInputStream(file.toPath())) {
             // load the content of the file
@@ -201,43 +344,46 @@ public class HttpResponse implements Response {
             String name = file.getName();
             String extension = name.substring(name.lastIndexOf('.'));
             // send the file content to the client
-            send(bytes, MIMEType.fromExtensionOrDefault(extension, MIMEType.PLAIN_TEXT));
+            return send(bytes, MIMEType.fromExtensionOrDefault(extension, MIMEType.PLAIN_TEXT));
         }
     }
 
     /**
      * Respond to the request with a file content.
      * @param path target file path
+     * @return future that will be completed when the response has been written
      * @throws IOException error whilst sending
      */
     @Override
-    public void sendFile(String path) throws IOException {
-        sendFile(new File(path));
+    public Future<Void> sendFile(String path) throws IOException {
+        return sendFile(new File(path));
     }
 
     /**
      * Respond to the request with an error.
      * @param error target error
+     * @return future that will be completed when the response has been written
      * @throws IOException error whilst sending
      */
     @Override
-    public void sendError(Throwable error) throws IOException {
+    public Future<Void> sendError(Throwable error) throws IOException {
         // capture the stack trace to a string writer
         StringWriter writer = new StringWriter();
         PrintWriter printer = new PrintWriter(writer);
         error.printStackTrace(printer);
         // send the error log wrapped with a <pre> tag
-        status(400).send("<pre>" + writer.toString() +  "</pre>");
+        return status(400).send("<pre>" + writer.toString() +  "</pre>");
     }
 
     /**
      * Respond to the request with a data transfer object.
      * @param object response object
      * @param <T> object type
+     * @return future that will be completed when the response has been written
      * @throws IOException error whilst sending
      */
     @Override
-    public <T> void sendObject(T object) throws IOException {
+    public <T> Future<Void> sendObject(T object) throws IOException {
         // check if the object is not a transfer object
         if (!object.getClass().isAnnotationPresent(Dto.class))
             throw new IllegalArgumentException(
@@ -245,16 +391,17 @@ public class HttpResponse implements Response {
                 "If you are sure this is safe, annotate the class with @Dto."
             );
         // serialize the object to json
-        send(gson.toJson(object), MIMEType.JSON);
+        return send(gson.toJson(object), MIMEType.JSON);
     }
 
     /**
      * Respond to the request with a template.
      * @param template server template
      * @param placeholders template placeholders
+     * @return future that will be completed when the response has been written
      */
     @Override
-    public void render(String template, boolean cache, Placeholder... placeholders) throws IOException {
+    public Future<Void> render(String template, boolean cache, Placeholder... placeholders) throws IOException {
         // get the template from cache
         String path = "./templates/" + template + ".html";
         String content = cache ? Asset.getUTF(path) : Asset.loadUTF(path);
@@ -262,36 +409,39 @@ public class HttpResponse implements Response {
         for (Placeholder placeholder : placeholders)
             content = content.replace(placeholder.getKey(), placeholder.getValue());
         // send the built template
-        send(content, MIMEType.HTML);
+        return send(content, MIMEType.HTML);
     }
 
     /**
      * Respond to the request with a template.
      * @param template server template
      * @param placeholders template placeholders
+     * @return future that will be completed when the response has been written
      */
     @Override
-    public void render(String template, Placeholder... placeholders) throws IOException {
-        render(template, false, placeholders);
+    public Future<Void> render(String template, Placeholder... placeholders) throws IOException {
+        return render(template, false, placeholders);
     }
 
     /**
      * Redirect the client to the given url.
      * @param url redirect url
      * @param seconds seconds to wait before the redirection
+     * @return future that will be completed when the response has been written
      */
     @Override
-    public void redirect(String url, int seconds) throws IOException {
-        send(String.format("<meta http-equiv=\"Refresh\" content=\"%s; url='%s'\" />", seconds, url));
+    public Future<Void> redirect(String url, int seconds) throws IOException {
+        return send(String.format("<meta http-equiv=\"Refresh\" content=\"%s; url='%s'\" />", seconds, url));
     }
 
     /**
      * Redirect the client to the given url.
      * @param url redirect url
+     * @return future that will be completed when the response has been written
      */
     @Override
-    public void redirect(String url) throws IOException {
-        redirect(url, 0);
+    public Future<Void> redirect(String url) throws IOException {
+        return redirect(url, 0);
     }
 
     /**
@@ -1,6 +1,7 @@
 package net.voidhttp.response;
 
 import com.google.gson.JsonObject;
+import dev.inventex.octa.concurrent.future.Future;
 import net.voidhttp.header.Headers;
 import net.voidhttp.response.cookie.Cookies;
 import net.voidhttp.util.asset.MIMEType;
@@ -18,95 +19,124 @@ public interface Response {
      * Response to the request with raw bytes and a content type given.
      * @param bytes response bytes
      * @param type content type
+     * @return future that will be completed when the response has been written
      */
-    void send(byte[] bytes, MIMEType type) throws IOException;
+    Future<Void> send(byte[] bytes, MIMEType type) throws IOException;
 
     /**
      * Response to the request with raw bytes.
      * @param bytes response bytes
+     * @return future that will be completed when the response has been written
      */
-    void send(byte[] bytes) throws IOException;
+    Future<Void> send(byte[] bytes) throws IOException;
 
     /**
      * Respond to the request with a raw text data and a content type given.
      * @param data response text
      * @param type content type
+     * @return future that will be completed when the response has been written
      */
-    void send(String data, MIMEType type) throws IOException;
+    Future<Void> send(String data, MIMEType type) throws IOException;
 
     /**
      * Respond to the request with a raw text data.
      * @param data response text
+     * @return future that will be completed when the response has been written
      */
-    void send(String data) throws IOException;
+    Future<Void> send(String data) throws IOException;
 
     /**
      * Respond to the request with a json data.
      * @param json response json
+     * @return future that will be completed when the response has been written
      */
-    void send(JsonObject json) throws IOException;
+    Future<Void> send(JsonObject json) throws IOException;
 
     /**
      * Respond to the request with a json data.
      * @param builder response json builder
+     * @return future that will be completed when the response has been written
      */
-    void send(JsonBuilder builder) throws IOException;
+    Future<Void> send(JsonBuilder builder) throws IOException;
 
     /**
      * Respond to the request with a file content.
      * @param file target file
+     * @return future that will be completed when the response has been written
      * @throws IOException error whilst sending
      */
-    void sendFile(File file) throws IOException;
+    Future<Void> sendFile(File file) throws IOException;
 
     /**
      * Respond to the request with a file content.
      * @param path target file path
+     * @return future that will be completed when the response has been written
      * @throws IOException error whilst sending
      */
-    void sendFile(String path) throws IOException;
+    Future<Void> sendFile(String path) throws IOException;
 
     /**
      * Respond to the request with an error.
      * @param error target error
+     * @return future that will be completed when the response has been written
      * @throws IOException error whilst sending
      */
-    void sendError(Throwable error) throws IOException;
+    Future<Void> sendError(Throwable error) throws IOException;
 
     /**
      * Respond to the request with a data transfer object.
      * @param object response object
      * @param <T> object type
+     * @return future that will be completed when the response has been written
      * @throws IOException error whilst sending
      */
-    <T> void sendObject(T object) throws IOException;
+    <T> Future<Void> sendObject(T object) throws IOException;
 
     /**
      * Respond to the request with a template.
      * @param template server template
      * @param placeholders template placeholders
+     * @return future that will be completed when the response has been written
      */
-    void render(String template, boolean cache, Placeholder... placeholders) throws IOException;
+    Future<Void> render(String template, boolean cache, Placeholder... placeholders) throws IOException;
 
     /**
      * Respond to the request with a template.
      * @param template server template
      * @param placeholders template placeholders
+     * @return future that will be completed when the response has been written
      */
-    void render(String template, Placeholder... placeholders) throws IOException;
+    Future<Void> render(String template, Placeholder... placeholders) throws IOException;
 
     /**
      * Redirect the client to the given url.
      * @param url redirect url
      * @param seconds seconds to wait before the redirection
+     * @return future that will be completed when the response has been written
      */
-    void redirect(String url, int seconds) throws IOException;
+    Future<Void> redirect(String url, int seconds) throws IOException;
 
     /**
      * Redirect the client to the given url.
      * @param url redirect url
+     * @return future that will be completed when the response has been written
      */
-    void redirect(String url) throws IOException;
+    Future<Void> redirect(String url) throws IOException;
+
+    /**
+     * Respond to the request with a body, that is written in chunks as the handler produces it,
+     * using the chunked transfer encoding.
+     * @param type content type
+     * @return the stream of the response body, that must be ended after the last chunk
+     */
+    ResponseStream stream(MIMEType type) throws IOException;
+
+    /**
+     * Respond to the request with a body, that is written in chunks as the handler produces it,
+     * using the chunked transfer encoding.
+     * @return the stream of the response body, that must be ended after the last chunk
+     */
+    ResponseStream stream() throws IOException;
 
     /**
      * Set the response status code.
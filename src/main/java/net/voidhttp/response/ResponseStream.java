@@ -0,0 +1,184 @@
+package net.voidhttp.response;
+
+import dev.inventex.octa.concurrent.future.Future;
+import net.voidhttp.HttpConnection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Represents the body of a response, that is written to the client in chunks as the handler produces it,
+ * instead of being buffered entirely in the memory.
+ * <p>
+ * The body is sent using the `Transfer-Encoding: chunked` encoding, so the size of the body does not have to be
+ * known in advance. HTTP/1.0 clients do not support the chunked encoding, so their body is written as it is, and
+ * the end of the body is indicated by closing the connection.
+ * <p>
+ * Each write returns a future that is completed when the chunk has been written to the socket channel, so the
+ * handler may wait for it before producing the next chunk. The stream must be ended by {@link #end()}, or aborted
+ * by {@link #abort()} if the body cannot be completed. A stream that is neither ended nor aborted within the
+ * response timeout is aborted by the server.
+ */
+public class ResponseStream {
+    /**
+     * The line terminator that follows the chunk size and the chunk data.
+     */
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    /**
+     * The last chunk, that terminates the chunked body.
+     */
+    private static final byte[] LAST_CHUNK = { '0', '\r', '\n', '\r', '\n' };
+
+    /**
+     * The client connection that the response is written to.
+     */
+    private final HttpConnection connection;
+
+    /**
+     * The sequence number of the request on the connection, that determines the order of the response.
+     */
+    private final int sequence;
+
+    /**
+     * The indication, whether the body is sent using the chunked encoding.
+     */
+    private final boolean chunked;
+
+    /**
+     * The indication, whether the connection should be kept alive after the response.
+     */
+    private final boolean keepAlive;
+
+    /**
+     * The indication, whether the stream has been ended.
+     */
+    private boolean ended;
+
+    /**
+     * The future of the response, that is completed when the end of the body has been written.
+     */
+    private final Future<Void> completion;
+
+    /**
+     * Initialize the response stream, and queue the response head to be written.
+     * @param connection the client connection that the response is written to
+     * @param sequence the sequence number of the request
+     * @param head the pooled buffer of the response head
+     * @param chunked true if the body should be sent using the chunked encoding
+     * @param keepAlive true if the connection should be kept alive after the response
+     * @param completion the future of the response, that is completed when the body has been written
+     */
+    ResponseStream(
+        HttpConnection connection, int sequence, ByteBuffer head, boolean chunked, boolean keepAlive,
+        Future<Void> completion
+    ) {
+        this.connection = connection;
+        this.sequence = sequence;
+        this.chunked = chunked;
+        this.keepAlive = keepAlive;
+        this.completion = completion;
+
+        connection.write(sequence, new ByteBuffer[] { head, ByteBuffer.allocate(0) }, false, keepAlive);
+    }
+
+    /**
+     * Write the next chunk of the body.
+     * @param bytes the bytes of the chunk
+     * @return future that will be completed when the chunk has been written
+     * @throws IOException if the stream has already been ended
+     */
+    public Future<Void> write(byte[] bytes) throws IOException {
+        return write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Write the next chunk of the body. The bytes are not copied, so they must not be modified,
+     * until the returned future is completed.
+     * @param bytes the array of the chunk bytes
+     * @param offset the offset of the chunk in the array
+     * @param length the amount of bytes of the chunk
+     * @return future that will be completed when the chunk has been written
+     * @throws IOException if the stream has already been ended
+     */
+    public synchronized Future<Void> write(byte[] bytes, int offset, int length) throws IOException {
+        if (ended)
+            throw new IOException("Response stream has already been ended");
+
+        // an empty chunk would terminate the chunked body
+        if (length == 0)
+            return Future.completed(null);
+
+        ByteBuffer data = ByteBuffer.wrap(bytes, offset, length);
+        if (!chunked)
+            return connection.write(sequence, new ByteBuffer[] { ByteBuffer.allocate(0), data }, false, keepAlive);
+
+        // write the chunk size and the chunk data together, without copying the data
+        ByteBuffer size = ByteBuffer.wrap((Integer.toHexString(length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        return connection.write(sequence, new ByteBuffer[] { size, data, ByteBuffer.wrap(CRLF) }, false, keepAlive);
+    }
+
+    /**
+     * Write the next chunk of the body.
+     * @param text the text of the chunk
+     * @return future that will be completed when the chunk has been written
+     * @throws IOException if the stream has already been ended
+     */
+    public Future<Void> write(String text) throws IOException {
+        return write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * End the body of the response. The responses of the subsequent requests are written afterwards.
+     * @return future that will be completed when the response has been written
+     * @throws IOException if the stream has already been ended
+     */
+    public synchronized Future<Void> end() throws IOException {
+        if (ended)
+            throw new IOException("Response stream has already been ended");
+        ended = true;
+
+        ByteBuffer terminator = ByteBuffer.wrap(chunked ? LAST_CHUNK : new byte[0]);
+        Future<Void> future = connection.write(
+            sequence, new ByteBuffer[] { terminator, ByteBuffer.allocate(0) }, true, keepAlive
+        );
+        future.then(completion::complete).except(completion::fail);
+        return future;
+    }
+
+    /**
+     * Abort the body of the response, if it cannot be completed. The connection is closed without writing the last
+     * chunk, so the client can tell the body apart from a complete one. The responses of the subsequent requests
+     * of the connection are never written.
+     * @return true if the stream has been aborted, false if it has already been ended
+     */
+    public boolean abort() {
+        return abort(new IOException("Response stream has been aborted"));
+    }
+
+    /**
+     * Abort the body of the response, if it cannot be completed, and fail the response with the specified cause.
+     * @param cause the reason of the abortion
+     * @return true if the stream has been aborted, false if it has already been ended
+     */
+    boolean abort(Throwable cause) {
+        synchronized (this) {
+            if (ended)
+                return false;
+            ended = true;
+        }
+
+        completion.fail(cause);
+        connection.close();
+        return true;
+    }
+
+    /**
+     * Indicate, whether the stream has been ended or aborted.
+     * @return true if no more chunks can be written
+     */
+    public synchronized boolean isEnded() {
+        return ended;
+    }
+}
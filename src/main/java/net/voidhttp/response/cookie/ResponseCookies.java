@@ -1,6 +1,7 @@
 package net.voidhttp.response.cookie;
 
 import lombok.RequiredArgsConstructor;
+import net.voidhttp.header.HeaderNames;
 import net.voidhttp.header.Headers;
 
 import java.util.ArrayList;
@@ -99,8 +100,8 @@ public class ResponseCookies implements Cookies {
      */
     @Override
     public void write(Headers headers) {
-        // add the response cookies to the response headers
+        // add the response cookies to the response headers, each cookie is sent in a separate header
         for (Cookie cookie : cookies)
-            headers.add("Set-Cookie", cookie.parse());
+            headers.append(HeaderNames.SET_COOKIE, cookie.parse());
     }
 }
@@ -7,8 +7,6 @@ import net.voidhttp.response.HttpResponse;
 import net.voidhttp.response.Response;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Represents a holder of HTTP request handlers that calls
@@ -26,50 +24,170 @@ public class Route {
      */
     private final Middleware[] middlewares;
 
+    /**
+     * The literal texts or the placeholder names of the route segments.
+     */
+    @Getter
+    private final String[] segments;
+
+    /**
+     * The kinds of the route segments.
+     */
+    @Getter
+    private final SegmentKind[] kinds;
+
+    /**
+     * The amount of segments of the route.
+     */
+    private final int segmentCount;
+
+    /**
+     * The amount of placeholders and wildcards of the route.
+     */
+    private final int paramCount;
+
+    /**
+     * The literal beginning of the route url, that precedes the first placeholder.
+     * Urls that do not start with this prefix are rejected without scanning them.
+     */
+    private final String literalPrefix;
+
+    /**
+     * The indication, whether the request content is streamed to the handlers, instead of being buffered.
+     */
+    @Getter
+    private final boolean streaming;
+
     /**
      * Initialize request route.
      * @param route route url
      * @param middlewares request handlers
      */
     public Route(String route, Middleware[] middlewares) {
+        this(route, middlewares, false);
+    }
+
+    /**
+     * Initialize request route.
+     * @param route route url
+     * @param middlewares request handlers
+     * @param streaming true if the request content should be streamed to the handlers
+     */
+    public Route(String route, Middleware[] middlewares, boolean streaming) {
         this.route = route;
         this.middlewares = middlewares;
+        this.streaming = streaming;
+
+        // split the route into segments once, so the request urls do not have to be split
+        int[] bounds = RouteTree.segments(route);
+        segmentCount = bounds.length / 2;
+        segments = new String[segmentCount];
+        kinds = new SegmentKind[segmentCount];
+
+        int params = 0;
+        int prefixEnd = -1;
+        for (int i = 0; i < segmentCount; i++) {
+            String segment = route.substring(bounds[i * 2], bounds[i * 2 + 1]);
+
+            if (segment.startsWith(":")) {
+                kinds[i] = SegmentKind.PARAM;
+                segments[i] = segment.substring(1);
+            } else if (segment.startsWith("*")) {
+                // the wildcard matches the rest of the url, therefore it must be the last segment
+                if (i != segmentCount - 1)
+                    throw new IllegalArgumentException("Wildcard must be the last segment of route " + route);
+                kinds[i] = SegmentKind.WILDCARD;
+                segments[i] = segment.length() > 1 ? segment.substring(1) : "*";
+            } else {
+                kinds[i] = SegmentKind.LITERAL;
+                segments[i] = segment;
+                continue;
+            }
+
+            // the literal prefix ends before the slash that precedes the first placeholder,
+            // as a wildcard may also match a url without the trailing slash
+            if (params++ == 0)
+                prefixEnd = Math.max(0, bounds[i * 2] - 1);
+        }
+
+        paramCount = params;
+        literalPrefix = prefixEnd >= 0
+            ? route.substring(0, prefixEnd)
+            : segmentCount > 0 ? route.substring(0, bounds[bounds.length - 1]) : "";
     }
 
     /**
      * Test if the request url matches the route url.
+     * The url is scanned segment by segment, using the pre-compiled segments of the route.
      * @param url request url
      * @return true if the url passed the test
      */
     public boolean test(String url, RequestQuery query) {
-        // the registry of the url query
-        Map<String, String> queryData = new HashMap<>();
-        // split up url between the '/' chars
-        String[] routeParts = route.split("/");
-        String[] urlParts = url.split("/");
-        // test if the length of url parts does not match
-        if (routeParts.length != urlParts.length)
+        // reject the urls that do not start with the literal beginning of the route
+        if (!url.startsWith(literalPrefix))
             return false;
-        // test the parts of the url
-        for (int i = 0; i < routeParts.length; i++) {
-            // get the current route and url part
-            String routePart = routeParts[i];
-            String urlPart = urlParts[i];
-            // continue if the current part is an empty string
-            if (routePart.isEmpty() && urlPart.isEmpty())
-                continue;
-            // check if the part is a query placeholder
-            if (routePart.startsWith(":")) {
-                queryData.put(routePart.substring(1), urlPart);
-                continue;
+
+        // the trailing slashes of the url are ignored
+        int end = url.length();
+        while (end > 0 && url.charAt(end - 1) == '/')
+            end--;
+
+        // the start and end offsets of the captured placeholders
+        int[] captures = paramCount > 0 ? new int[paramCount * 2] : null;
+        int captured = 0;
+
+        // a url that only consists of slashes does not have any segments
+        boolean exhausted = end == 0 && !url.isEmpty();
+        int position = 0;
+
+        for (int i = 0; i < segmentCount; i++) {
+            // the wildcard captures the rest of the url, even if there are no more segments
+            if (kinds[i] == SegmentKind.WILDCARD) {
+                captures[captured * 2] = exhausted ? end : position;
+                captures[captured * 2 + 1] = end;
+                captured++;
+                exhausted = true;
+                break;
             }
-            // test if the current part does not match the registered one
-            if (!routePart.equals(urlPart))
+
+            // test if the url has less segments than the route
+            if (exhausted)
                 return false;
+
+            // find the end of the current url segment
+            int segmentEnd = url.indexOf('/', position);
+            if (segmentEnd < 0 || segmentEnd > end)
+                segmentEnd = end;
+
+            if (kinds[i] == SegmentKind.PARAM) {
+                captures[captured * 2] = position;
+                captures[captured * 2 + 1] = segmentEnd;
+                captured++;
+            } else {
+                // test if the current part does not match the registered one
+                String segment = segments[i];
+                int length = segment.length();
+                if (segmentEnd - position != length || !url.regionMatches(position, segment, 0, length))
+                    return false;
+            }
+
+            if (segmentEnd == end)
+                exhausted = true;
+            else
+                position = segmentEnd + 1;
         }
+
+        // test if the url has more segments than the route
+        if (!exhausted)
+            return false;
+
         // apply query data
-        for (Map.Entry<String, String> entry : queryData.entrySet())
-            query.set(entry.getKey(), entry.getValue());
+        for (int i = 0, param = 0; i < segmentCount; i++) {
+            if (kinds[i] != SegmentKind.LITERAL) {
+                query.set(segments[i], url.substring(captures[param * 2], captures[param * 2 + 1]));
+                param++;
+            }
+        }
         // url passed the test
         return true;
     }
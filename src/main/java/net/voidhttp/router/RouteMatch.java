@@ -0,0 +1,22 @@
+package net.voidhttp.router;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.voidhttp.request.query.RequestQuery;
+
+/**
+ * Represents a route that matched the url of a request, along with the url placeholders captured by the route.
+ */
+@RequiredArgsConstructor
+@Getter
+public class RouteMatch {
+    /**
+     * The route that matched the request url.
+     */
+    private final Route route;
+
+    /**
+     * The url placeholders captured by the route.
+     */
+    private final RequestQuery query;
+}
@@ -0,0 +1,347 @@
+package net.voidhttp.router;
+
+import dev.inventex.octa.data.primitive.Tuple;
+import lombok.RequiredArgsConstructor;
+import net.voidhttp.request.query.RequestQuery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents a prefix tree of the routes registered for a request method, that is built at registration time.
+ * <p>
+ * Each node of the tree represents a segment of the route url, that is either a literal segment,
+ * a `:name` placeholder that matches any single segment, or a `*` wildcard that matches the rest of the url.
+ * Matching a request url takes time proportional to the length of the url, regardless of the amount
+ * of registered routes, and nothing is allocated for the routes that do not match.
+ * <p>
+ * The url is split into segments the same way as {@link String#split(String)} would do,
+ * so trailing slashes are ignored.
+ */
+public class RouteTree {
+    /**
+     * The root node of the tree, that represents the beginning of the url.
+     */
+    private final Node root = new Node();
+
+    /**
+     * The amount of routes that have been inserted into the tree.
+     */
+    private int size;
+
+    /**
+     * Insert the route into the tree.
+     * @param route the route to insert
+     */
+    public void insert(Route route) {
+        String[] segments = route.getSegments();
+        SegmentKind[] kinds = route.getKinds();
+
+        Node node = root;
+        List<String> names = new ArrayList<>();
+
+        for (int i = 0; i < segments.length; i++) {
+            switch (kinds[i]) {
+                // the placeholder matches any single segment of the url
+                case PARAM -> {
+                    names.add(segments[i]);
+                    if (node.param == null)
+                        node.param = new Node();
+                    node = node.param;
+                }
+                // the wildcard matches the rest of the url
+                case WILDCARD -> {
+                    names.add(segments[i]);
+                    if (node.wildcard == null)
+                        node.wildcard = new Node();
+                    node = node.wildcard;
+                }
+                // otherwise the segment must match the url literally
+                case LITERAL -> node = node.child(segments[i]);
+            }
+        }
+
+        node.entries.add(new Entry(route, size++, names.toArray(String[]::new)));
+    }
+
+    /**
+     * Find the routes that match the specified request url, in the order of their registration.
+     * @param url the request url
+     * @return the list of the matching routes and their captured placeholders
+     */
+    public List<RouteMatch> match(String url) {
+        int[] bounds = segments(url);
+        List<Tuple<Integer, RouteMatch>> matches = new ArrayList<>(1);
+        collect(root, url, bounds, 0, new int[bounds.length + 2], 0, matches);
+
+        // the routes may be matched by different branches of the tree,
+        // restore the order of their registration, as multiple routes may handle the request
+        if (matches.size() > 1)
+            matches.sort(Comparator.comparingInt(Tuple::getFirst));
+
+        List<RouteMatch> result = new ArrayList<>(matches.size());
+        for (Tuple<Integer, RouteMatch> match : matches)
+            result.add(match.getSecond());
+        return result;
+    }
+
+    /**
+     * Collect the routes of the node and its descendants that match the rest of the url.
+     * @param node the current node of the tree
+     * @param url the request url
+     * @param bounds the start and end offsets of the url segments
+     * @param index the index of the next url segment to be matched
+     * @param captures the start and end offsets of the captured placeholders
+     * @param captured the amount of placeholders captured so far
+     * @param matches the list of the matching routes
+     */
+    private void collect(
+        Node node, String url, int[] bounds, int index, int[] captures, int captured,
+        List<Tuple<Integer, RouteMatch>> matches
+    ) {
+        int count = bounds.length / 2;
+
+        // the wildcard matches the rest of the url, even if there are no more segments
+        if (node.wildcard != null) {
+            captures[captured * 2] = index < count ? bounds[index * 2] : url.length();
+            captures[captured * 2 + 1] = index < count ? bounds[bounds.length - 1] : url.length();
+            addMatches(node.wildcard, url, captures, matches);
+        }
+
+        // all the segments have been matched, the routes of the node match the url
+        if (index == count) {
+            addMatches(node, url, captures, matches);
+            return;
+        }
+
+        int start = bounds[index * 2];
+        int end = bounds[index * 2 + 1];
+
+        // try to match the segment literally
+        Node child = node.find(url, start, end);
+        if (child != null)
+            collect(child, url, bounds, index + 1, captures, captured, matches);
+
+        // try to match the segment with a placeholder
+        if (node.param != null) {
+            captures[captured * 2] = start;
+            captures[captured * 2 + 1] = end;
+            collect(node.param, url, bounds, index + 1, captures, captured + 1, matches);
+        }
+    }
+
+    /**
+     * Register the routes of the node as matches, using the captured placeholders.
+     * @param node the node of the matching routes
+     * @param url the request url
+     * @param captures the start and end offsets of the captured placeholders
+     * @param matches the list of the matching routes
+     */
+    private void addMatches(Node node, String url, int[] captures, List<Tuple<Integer, RouteMatch>> matches) {
+        for (Entry entry : node.entries) {
+            // each route may name the placeholders differently
+            RequestQuery query = new RequestQuery();
+            for (int i = 0; i < entry.names.length; i++)
+                query.set(entry.names[i], url.substring(captures[i * 2], captures[i * 2 + 1]));
+            matches.add(new Tuple<>(entry.order, new RouteMatch(entry.route, query)));
+        }
+    }
+
+    /**
+     * Determine the start and end offsets of the segments of the url, that are separated by slashes.
+     * The trailing empty segments are ignored, just like {@link String#split(String)} would do.
+     * @param url the url to split
+     * @return the start and end offsets of each segment
+     */
+    public static int[] segments(String url) {
+        int length = url.length();
+        if (length == 0)
+            return new int[] { 0, 0 };
+
+        // ignore the trailing slashes
+        int end = length;
+        while (end > 0 && url.charAt(end - 1) == '/')
+            end--;
+        if (end == 0)
+            return new int[0];
+
+        int count = 1;
+        for (int i = 0; i < end; i++) {
+            if (url.charAt(i) == '/')
+                count++;
+        }
+
+        int[] bounds = new int[count * 2];
+        int segment = 0;
+        int start = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i == end || url.charAt(i) == '/') {
+                bounds[segment * 2] = start;
+                bounds[segment * 2 + 1] = i;
+                segment++;
+                start = i + 1;
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Represents a node of the route tree.
+     * <p>
+     * The literal children are indexed by an open-addressed table, that is keyed by the hash of their segments,
+     * so a segment of the url is looked up without being compared to each sibling, and without being copied.
+     */
+    private static class Node {
+        /**
+         * The initial amount of slots of the literal children table.
+         */
+        private static final int INITIAL_CAPACITY = 4;
+
+        /**
+         * The literal segments of the child nodes, indexed by the hashes of the segments.
+         * The empty slots are nulls.
+         */
+        private String[] labels = new String[INITIAL_CAPACITY];
+
+        /**
+         * The child nodes of the literal segments, in the slots of their segments.
+         */
+        private Node[] children = new Node[INITIAL_CAPACITY];
+
+        /**
+         * The hashes of the literal segments, in the slots of their segments.
+         */
+        private int[] hashes = new int[INITIAL_CAPACITY];
+
+        /**
+         * The amount of the literal child nodes.
+         */
+        private int size;
+
+        /**
+         * The child node of the placeholder segment.
+         */
+        private Node param;
+
+        /**
+         * The child node of the wildcard segment.
+         */
+        private Node wildcard;
+
+        /**
+         * The routes that end at this node.
+         */
+        private final List<Entry> entries = new ArrayList<>(1);
+
+        /**
+         * Get the child node of the literal segment, and create it, if it does not exist yet.
+         * @param label the literal segment
+         * @return the child node of the segment
+         */
+        private Node child(String label) {
+            Node child = find(label, 0, label.length());
+            if (child != null)
+                return child;
+
+            // keep the table at most half full, so the probe sequences stay short
+            if (++size * 2 > labels.length)
+                resize(labels.length * 2);
+
+            child = new Node();
+            insert(label, hash(label, 0, label.length()), child);
+            return child;
+        }
+
+        /**
+         * Find the child node of the literal segment, that is specified as a range of the url.
+         * @param url the request url
+         * @param start the start offset of the segment
+         * @param end the end offset of the segment
+         * @return the child node of the segment, or null if it does not exist
+         */
+        private Node find(String url, int start, int end) {
+            if (size == 0)
+                return null;
+
+            int length = end - start;
+            int hash = hash(url, start, end);
+            int mask = labels.length - 1;
+            for (int slot = hash & mask; labels[slot] != null; slot = (slot + 1) & mask) {
+                String label = labels[slot];
+                if (hashes[slot] == hash && label.length() == length && url.regionMatches(start, label, 0, length))
+                    return children[slot];
+            }
+            return null;
+        }
+
+        /**
+         * Insert the literal child node into the first free slot of its segment.
+         * @param label the literal segment
+         * @param hash the hash of the segment
+         * @param child the child node of the segment
+         */
+        private void insert(String label, int hash, Node child) {
+            int mask = labels.length - 1;
+            int slot = hash & mask;
+            while (labels[slot] != null)
+                slot = (slot + 1) & mask;
+            labels[slot] = label;
+            hashes[slot] = hash;
+            children[slot] = child;
+        }
+
+        /**
+         * Move the literal child nodes into a new table of the specified capacity.
+         * @param capacity the amount of slots of the new table
+         */
+        private void resize(int capacity) {
+            String[] oldLabels = labels;
+            Node[] oldChildren = children;
+            int[] oldHashes = hashes;
+
+            labels = new String[capacity];
+            children = new Node[capacity];
+            hashes = new int[capacity];
+            for (int i = 0; i < oldLabels.length; i++) {
+                if (oldLabels[i] != null)
+                    insert(oldLabels[i], oldHashes[i], oldChildren[i]);
+            }
+        }
+
+        /**
+         * Calculate the hash of the segment, that is specified as a range of the url.
+         * @param url the url of the segment
+         * @param start the start offset of the segment
+         * @param end the end offset of the segment
+         * @return the hash of the segment
+         */
+        private static int hash(String url, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++)
+                hash = 31 * hash + url.charAt(i);
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * Represents a route that ends at a node of the tree.
+     */
+    @RequiredArgsConstructor
+    private static class Entry {
+        /**
+         * The registered route.
+         */
+        private final Route route;
+
+        /**
+         * The registration order of the route.
+         */
+        private final int order;
+
+        /**
+         * The names of the placeholders of the route, in the order of their segments.
+         */
+        private final String[] names;
+    }
+}
@@ -22,6 +22,16 @@ public class Router {
      */
     private final Map<Method, List<Route>> routeMap = new HashMap<>();
 
+    /**
+     * The map of the route trees, that are used to match the request urls of each method.
+     */
+    private final Map<Method, RouteTree> treeMap = new HashMap<>();
+
+    /**
+     * The indication, whether any of the routes stream the request content.
+     */
+    private boolean hasStreamingRoutes;
+
     /**
      * The map of the registered error routes.
      */
@@ -47,12 +57,27 @@ public class Router {
      * @param middlewares request handlers
      */
     public void register(Method method, String route, Middleware... middlewares) {
+        register(method, route, false, middlewares);
+    }
+
+    /**
+     * Register a handler for the given request method.
+     * @param method request method
+     * @param route request route
+     * @param streaming true if the request content should be streamed to the handlers
+     * @param middlewares request handlers
+     */
+    public void register(Method method, String route, boolean streaming, Middleware... middlewares) {
         // get the registered routes for the method
         List<Route> routes = routeMap.getOrDefault(method, new ArrayList<>());
         // register the handlers
-        routes.add(new Route(route, middlewares));
+        Route handler = new Route(route, middlewares, streaming);
+        hasStreamingRoutes |= streaming;
+        routes.add(handler);
         // update the routes
         routeMap.put(method, routes);
+        // insert the route into the tree of the method
+        treeMap.computeIfAbsent(method, key -> new RouteTree()).insert(handler);
     }
 
     /**
@@ -150,6 +175,12 @@ public class Router {
         // extract the request and response of the context
         HttpRequest request = context.getRequest();
         HttpResponse response = context.getResponse();
+        // the head of a streamed response has already been written, so the error cannot be sent,
+        // close the connection without ending the body, otherwise the partial body would seem complete
+        if (response.isStreaming()) {
+            response.abort(error);
+            return;
+        }
         // get the code 400 handlers
         boolean handled = false;
         List<Route> errorRoutes = errorMap.get(400);
@@ -183,6 +214,36 @@ public class Router {
         }
     }
 
+    /**
+     * Find the routes of the method that match the request url, in the order of their registration.
+     * @param method request method
+     * @param url request url
+     * @return the list of the matching routes and their captured placeholders
+     */
+    public List<RouteMatch> match(Method method, String url) {
+        RouteTree tree = treeMap.get(method);
+        return tree != null ? tree.match(url) : Collections.emptyList();
+    }
+
+    /**
+     * Determine, whether the request content of the method and url should be streamed to the handlers.
+     * The content is streamed, if any of the matching routes is a streaming route.
+     * @param method request method
+     * @param url request url
+     * @return true if the content should be streamed
+     */
+    public boolean isStreaming(Method method, String url) {
+        // avoid matching the url twice, if there are no streaming routes at all
+        if (!hasStreamingRoutes)
+            return false;
+
+        for (RouteMatch match : match(method, url)) {
+            if (match.getRoute().isStreaming())
+                return true;
+        }
+        return false;
+    }
+
     public List<Route> getRoutes(Method method) {
         return routeMap.get(method);
     }
@@ -0,0 +1,21 @@
+package net.voidhttp.router;
+
+/**
+ * Represents the kind of a segment of a route url.
+ */
+public enum SegmentKind {
+    /**
+     * `LITERAL` indicates, that the segment must match the url segment exactly.
+     */
+    LITERAL,
+
+    /**
+     * `PARAM` indicates, that the segment is a `:name` placeholder, that matches any single url segment.
+     */
+    PARAM,
+
+    /**
+     * `WILDCARD` indicates, that the segment is a `*` or `*name` wildcard, that matches the rest of the url.
+     */
+    WILDCARD
+}
@@ -0,0 +1,101 @@
+package server;
+
+import net.voidhttp.HttpServer;
+import net.voidhttp.response.ResponseStream;
+import net.voidhttp.util.asset.MIMEType;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class ChunkedTest {
+    public static void main(String[] args) throws Exception {
+        HttpServer server = new HttpServer();
+
+        // the chunked request content is decoded before the handler is called
+        server.post("/echo", (req, res) -> {
+            res.send("Echo: " + req.body());
+        });
+
+        // the report is written line by line, without knowing its size in advance
+        server.get("/report", (req, res) -> {
+            ResponseStream stream = res.stream(MIMEType.PLAIN_TEXT);
+            for (int i = 1; i <= 3; i++)
+                stream.write("Report line " + i + "\n").get();
+            stream.end();
+        });
+
+        // a single chunk, that is larger than the write window of the connection
+        server.get("/large", (req, res) -> {
+            byte[] data = new byte[200000];
+            Arrays.fill(data, (byte) 'x');
+            ResponseStream stream = res.stream(MIMEType.PLAIN_TEXT);
+            stream.write(data).get();
+            stream.end();
+        });
+
+        // the report fails after its first line, the body must not be terminated by the last chunk
+        server.get("/failing", (req, res) -> {
+            ResponseStream stream = res.stream(MIMEType.PLAIN_TEXT);
+            stream.write("Report line 1\n").get();
+            throw new IllegalStateException("Report could not be completed");
+        });
+
+        server.listen(1234, () -> System.out.println("Listening on port 1234"));
+
+        try (Socket socket = new Socket("127.0.0.1", 1234)) {
+            OutputStream output = socket.getOutputStream();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+            output.write((
+                "POST /echo HTTP/1.1\r\nHost: 127.0.0.1\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "6\r\nHello,\r\n7\r\n World!\r\n0\r\n\r\n" +
+                "GET /report HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n\r\n"
+            ).getBytes(StandardCharsets.UTF_8));
+            output.flush();
+
+            // print both of the raw responses, the second one is chunked
+            String line;
+            while ((line = reader.readLine()) != null)
+                System.out.println(line);
+        }
+
+        // decode the large chunked body, the chunk must be terminated only after all of its data
+        try (Socket socket = new Socket("127.0.0.1", 1234)) {
+            socket.getOutputStream().write(
+                "GET /large HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.UTF_8)
+            );
+            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+            int index = response.indexOf("\r\n\r\n") + 4;
+            int total = 0;
+            boolean valid = true;
+            while (true) {
+                int lineEnd = response.indexOf("\r\n", index);
+                int size = Integer.parseInt(response.substring(index, lineEnd), 16);
+                index = lineEnd + 2;
+                if (size == 0)
+                    break;
+                for (int i = index; i < index + size; i++)
+                    valid &= response.charAt(i) == 'x';
+                valid &= response.startsWith("\r\n", index + size);
+                total += size;
+                index += size + 2;
+            }
+            System.out.println("Large body: " + total + " bytes, valid framing: " + valid);
+        }
+
+        // the failed report is aborted by closing the connection, without the last chunk
+        try (Socket socket = new Socket("127.0.0.1", 1234)) {
+            socket.getOutputStream().write(
+                "GET /failing HTTP/1.1\r\nHost: 127.0.0.1\r\n\r\n".getBytes(StandardCharsets.UTF_8)
+            );
+            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+            System.out.println("Failed body aborted: " + !response.endsWith("0\r\n\r\n"));
+        }
+
+        server.shutdown();
+    }
+}
@@ -0,0 +1,89 @@
+package server;
+
+import net.voidhttp.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class FramingTest {
+    public static void main(String[] args) throws Exception {
+        HttpServer server = new HttpServer();
+
+        server.post("/echo", (req, res) -> {
+            res.send("Echo: " + req.body());
+        });
+
+        server.listen(1234, () -> System.out.println("Listening on port 1234"));
+
+        // the well-framed requests are accepted
+        send("valid chunked", "Transfer-Encoding: chunked\r\n", "5\r\nHello\r\n0\r\n\r\n");
+        send("valid chunk extension", "Transfer-Encoding: chunked\r\n", "5 ;name=value\r\nHello\r\n0\r\n\r\n");
+        send("valid content length", "Content-Length: 5\r\n", "Hello");
+        send("repeated content length", "Content-Length: 5\r\nContent-Length: 5\r\n", "Hello");
+
+        // the malformed chunk lines must be rejected, as a proxy could frame them differently
+        send("carriage return in size", "Transfer-Encoding: chunked\r\n", "1\r2\r\nx\r\n0\r\n\r\n");
+        send("whitespace in size", "Transfer-Encoding: chunked\r\n", "5 6\r\nHello\r\n0\r\n\r\n");
+        send("bare line feed after size", "Transfer-Encoding: chunked\r\n", "5\nHello\r\n0\r\n\r\n");
+        send("missing size", "Transfer-Encoding: chunked\r\n", ";ext\r\nHello\r\n0\r\n\r\n");
+        send("multiple carriage returns after data", "Transfer-Encoding: chunked\r\n", "5\r\nHello\r\r\n0\r\n\r\n");
+        send("multiple line breaks after data", "Transfer-Encoding: chunked\r\n", "5\r\nHello\r\n\r\n0\r\n\r\n");
+        send("multiple carriage returns after trailers", "Transfer-Encoding: chunked\r\n", "0\r\n\r\r\n");
+        send("folded trailer line", "Transfer-Encoding: chunked\r\n", "0\r\nA: b\r\n c\r\n\r\n");
+
+        // the content must be framed by either the transfer encoding or the content length
+        send("transfer encoding and content length",
+            "Transfer-Encoding: chunked\r\nContent-Length: 5\r\n", "0\r\n\r\n");
+        send("repeated transfer encoding",
+            "Transfer-Encoding: chunked\r\nTransfer-Encoding: chunked\r\n", "0\r\n\r\n");
+
+        // the header names must be tokens, otherwise a proxy could normalize them to the framing headers
+        send("whitespace before colon", "Transfer-Encoding : chunked\r\n", "0\r\n\r\n");
+        send("whitespace in name", "Transfer Encoding: chunked\r\n", "0\r\n\r\n");
+        send("folded header line", "Content-Length: 5\r\n\tTransfer-Encoding: chunked\r\n", "Hello");
+        send("empty header name", ": chunked\r\n", "");
+
+        // the content length must be a single non-negative integer
+        send("conflicting content length", "Content-Length: 5\r\nContent-Length: 6\r\n", "Hello!");
+        send("conflicting content length list", "Content-Length: 5, 6\r\n", "Hello!");
+        send("signed content length", "Content-Length: +5\r\n", "Hello");
+        send("negative content length", "Content-Length: -5\r\n", "Hello");
+
+        server.shutdown();
+    }
+
+    /**
+     * Send a request with the specified framing headers and content, and print the response status line,
+     * and whether the connection has been closed by the server.
+     */
+    private static void send(String name, String headers, String content) throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", 1234)) {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write((
+                "POST /echo HTTP/1.1\r\nHost: 127.0.0.1\r\nContent-Type: text/plain\r\n" + headers + "\r\n" + content
+            ).getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            String status = reader.readLine();
+
+            // the rejected requests must close the connection, as the next request could not be framed
+            boolean closed = false;
+            if (status != null && status.contains(" 400")) {
+                while (true) {
+                    try {
+                        if (reader.read() == -1) {
+                            closed = true;
+                            break;
+                        }
+                    } catch (Exception e) {
+                        break;
+                    }
+                }
+            }
+            System.out.println(name + ": " + status + (closed ? " (closed)" : ""));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package server;
+
+import net.voidhttp.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class KeepAliveTest {
+    public static void main(String[] args) throws Exception {
+        HttpServer server = new HttpServer();
+
+        server.get("/", (req, res) -> {
+            res.send("Hello, World!");
+        });
+
+        server.listen(1234, () -> System.out.println("Listening on port 1234"));
+
+        // send multiple requests over the same socket connection
+        try (Socket socket = new Socket("127.0.0.1", 1234)) {
+            OutputStream output = socket.getOutputStream();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+            for (int i = 0; i < 3; i++) {
+                String connection = i == 2 ? "close" : "keep-alive";
+                output.write(("GET / HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: " + connection + "\r\n\r\n")
+                    .getBytes(StandardCharsets.UTF_8));
+                output.flush();
+
+                // read the response headers and the body
+                int contentLength = 0;
+                String line;
+                while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                    System.out.println(line);
+                    if (line.toLowerCase().startsWith("content-length:"))
+                        contentLength = Integer.parseInt(line.substring(15).trim());
+                }
+
+                char[] body = new char[contentLength];
+                int read = 0;
+                while (read < contentLength)
+                    read += reader.read(body, read, contentLength - read);
+                System.out.println(new String(body));
+            }
+
+            // the server should close the connection after the last request
+            System.out.println("closed: " + (reader.read() == -1));
+        }
+
+        server.shutdown();
+    }
+}
@@ -0,0 +1,44 @@
+package server;
+
+import net.voidhttp.HttpServer;
+import net.voidhttp.request.Method;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class StreamTest {
+    public static void main(String[] args) throws Exception {
+        HttpServer server = new HttpServer();
+
+        // the upload is larger than the max content length, but it is never buffered as a whole
+        server.stream(Method.POST, "/upload", (req, res) -> {
+            ByteArrayOutputStream counter = new ByteArrayOutputStream();
+            req.stream().pipe(counter).tryThen(value -> res.send("Received " + counter.size() + " bytes"));
+        });
+
+        server.listen(1234, () -> System.out.println("Listening on port 1234"));
+
+        int length = 4 * 1024 * 1024;
+        try (Socket socket = new Socket("127.0.0.1", 1234)) {
+            OutputStream output = socket.getOutputStream();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+            output.write(("POST /upload HTTP/1.1\r\nHost: 127.0.0.1\r\nConnection: close\r\n" +
+                "Content-Length: " + length + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            byte[] chunk = new byte[65536];
+            for (int sent = 0; sent < length; sent += chunk.length)
+                output.write(chunk);
+            output.flush();
+
+            String line;
+            while ((line = reader.readLine()) != null)
+                System.out.println(line);
+        }
+
+        server.shutdown();
+    }
+}